@@ -0,0 +1,33 @@
+package dev.ethp.pal.codegen
+
+import dev.ethp.pal.math.ColorMetric
+import dev.ethp.pal.math.Palette
+import dev.ethp.pal.text.Color
+import java.io.File
+import java.io.FileOutputStream
+
+/**
+ * Generates the quantization table of the legacy color palette for every color metric.
+ *
+ * The tables are written as resources next to [Color], where they are loaded the first time a table is needed instead
+ * of being built at runtime.
+ *
+ * Arguments: `<resources directory>`
+ */
+fun main(args: Array<String>) {
+	if (args.size != 1) {
+		throw IllegalArgumentException("Usage: QuantizationTables <resources directory>")
+	}
+
+	val output = File(args[0], Color::class.java.`package`.name.replace('.', '/'))
+	val legacy = Color.values()
+	val colors = IntArray(legacy.size) { i -> legacy[i].rgb }
+
+	for (metric in ColorMetric.values()) {
+		val file = File(output, Color.quantizationTableResource(metric))
+		file.parentFile.mkdirs()
+		FileOutputStream(file).use { out ->
+			Palette(colors, metric).writeTable(out)
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package dev.ethp.pal.math;
+
+import dev.ethp.pal.text.Color;
+
+/**
+ * A report of how often each {@link ColorMetric} quantizes to the same legacy color as {@link ColorMetric#CIEDE2000}.
+ * <p>
+ * This quantizes every color in the 24-bit RGB space with each metric.
+ * Run it with the {@code jmh} source set on the classpath.
+ */
+public class ColorMetricAgreement {
+
+	public static void main(String[] args) {
+		int[] rgb = new int[1 << 24];
+		for (int i = 0; i < rgb.length; i++) {
+			rgb[i] = i;
+		}
+
+		Color.setUseQuantizationTable(true);
+
+		char[] expected = new char[rgb.length];
+		Color.quantize(rgb, 0, expected, 0, rgb.length, ColorMetric.CIEDE2000);
+
+		System.out.printf("%-10s %12s %10s%n", "Metric", "Agreement", "Time");
+		char[] actual = new char[rgb.length];
+		for (ColorMetric metric : ColorMetric.values()) {
+			long start = System.nanoTime();
+			Color.quantize(rgb, 0, actual, 0, rgb.length, metric);
+			long elapsed = System.nanoTime() - start;
+
+			int agree = 0;
+			for (int i = 0; i < rgb.length; i++) {
+				if (actual[i] == expected[i]) agree++;
+			}
+
+			System.out.printf("%-10s %11.3f%% %8dms%n", metric.getName(), 100.0 * agree / rgb.length, elapsed / 1000000);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package dev.ethp.pal.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for comparing prepared colors with each {@link ColorMetric}.
+ * <p>
+ * Every invocation compares one color against the 16 legacy colors, which is the work done to quantize one color.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColorMetricBenchmark {
+
+	private static final int[] LEGACY = {
+			0x000000, 0x0000AA, 0x00AA00, 0x00AAAA, 0xAA0000, 0xAA00AA, 0xFFAA00, 0xAAAAAA,
+			0x555555, 0x5555FF, 0x55FF55, 0x55FFFF, 0xFF5555, 0xFF55FF, 0xFFFF55, 0xFFFFFF
+	};
+
+	@Param({"CIE76", "CIE94", "CIEDE2000", "REDMEAN"})
+	String metricName;
+
+	private ColorMetric metric;
+	private double[] palette;
+	private double[] sample;
+	private int[] rgb;
+	private int next;
+
+	@Setup
+	public void setup() {
+		for (ColorMetric metric : ColorMetric.values()) {
+			if (metric.getName().equals(this.metricName)) this.metric = metric;
+		}
+
+		int stride = this.metric.getStride();
+		this.palette = new double[LEGACY.length * stride];
+		for (int i = 0; i < LEGACY.length; i++) {
+			this.metric.prepare(LEGACY[i], this.palette, i * stride);
+		}
+
+		Random random = new Random(0);
+		this.sample = new double[stride];
+		this.rgb = new int[4096];
+		for (int i = 0; i < this.rgb.length; i++) {
+			this.rgb[i] = random.nextInt() & 0xFFFFFF;
+		}
+	}
+
+	/**
+	 * Prepares a color and finds the closest legacy color.
+	 */
+	@Benchmark
+	public int nearest() {
+		int stride = this.metric.getStride();
+		this.metric.prepare(this.rgb[this.next++ & (this.rgb.length - 1)], this.sample, 0);
+
+		int best = 0;
+		double bestDelta = Double.MAX_VALUE;
+		for (int i = 0; i < LEGACY.length; i++) {
+			double delta = this.metric.delta(this.palette, i * stride, this.sample, 0);
+			if (delta < bestDelta) {
+				bestDelta = delta;
+				best = i;
+			}
+		}
+
+		return best;
+	}
+
+}
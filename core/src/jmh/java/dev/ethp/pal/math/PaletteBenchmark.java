@@ -0,0 +1,92 @@
+package dev.ethp.pal.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for finding the nearest color in a {@link Palette}.
+ * <p>
+ * Palettes with more than 32 colors are searched using a k-d tree, while {@code linear} always compares against every
+ * color in the palette.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaletteBenchmark {
+
+	@Param({"CIE76", "CIE94", "CIEDE2000", "REDMEAN"})
+	String metricName;
+
+	/**
+	 * The number of colors in the palette.
+	 */
+	@Param({"256", "4096"})
+	int size;
+
+	private ColorMetric metric;
+	private Palette palette;
+	private double[] prepared;
+	private double[] sample;
+	private int[] rgb;
+	private int next;
+
+	@Setup
+	public void setup() {
+		for (ColorMetric metric : ColorMetric.values()) {
+			if (metric.getName().equals(this.metricName)) this.metric = metric;
+		}
+
+		Random random = new Random(0);
+		int[] colors = new int[this.size];
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] = random.nextInt() & 0xFFFFFF;
+		}
+
+		int stride = this.metric.getStride();
+		this.palette = new Palette(colors, this.metric);
+		this.prepared = new double[colors.length * stride];
+		for (int i = 0; i < colors.length; i++) {
+			this.metric.prepare(colors[i], this.prepared, i * stride);
+		}
+
+		this.sample = new double[stride];
+		this.rgb = new int[4096];
+		for (int i = 0; i < this.rgb.length; i++) {
+			this.rgb[i] = random.nextInt() & 0xFFFFFF;
+		}
+	}
+
+	/**
+	 * Finds the nearest color using the palette.
+	 */
+	@Benchmark
+	public int nearest() {
+		return this.palette.nearestIndex(this.rgb[this.next++ & (this.rgb.length - 1)]);
+	}
+
+	/**
+	 * Finds the nearest color by comparing against every color.
+	 */
+	@Benchmark
+	public int linear() {
+		int stride = this.metric.getStride();
+		this.metric.prepare(this.rgb[this.next++ & (this.rgb.length - 1)], this.sample, 0);
+
+		int best = 0;
+		double bestDelta = Double.MAX_VALUE;
+		for (int i = 0; i < this.size; i++) {
+			double delta = this.metric.delta(this.prepared, i * stride, this.sample, 0);
+			if (delta < bestDelta) {
+				bestDelta = delta;
+				best = i;
+			}
+		}
+
+		return best;
+	}
+
+}
@@ -0,0 +1,80 @@
+package dev.ethp.pal.text;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for quantizing RGB colors to legacy color codes.
+ * <p>
+ * Every benchmark quantizes {@code size} colors per invocation, so throughput per color is {@code size} times the
+ * reported throughput. Batches below 8192 colors are quantized on a single core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColorQuantizationBenchmark {
+
+	/**
+	 * The number of colors quantized per invocation.
+	 */
+	@Param({"4096", "262144"})
+	int size;
+
+	/**
+	 * The number of distinct colors in the input.
+	 */
+	@Param({"64", "65536"})
+	int distinct;
+
+	/**
+	 * Whether the quantization table is used.
+	 */
+	@Param({"false", "true"})
+	boolean table;
+
+	private int[] rgb;
+	private char[] codes;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		int[] palette = new int[this.distinct];
+		for (int i = 0; i < palette.length; i++) {
+			palette[i] = random.nextInt() & 0xFFFFFF;
+		}
+
+		this.rgb = new int[this.size];
+		this.codes = new char[this.size];
+		for (int i = 0; i < this.rgb.length; i++) {
+			this.rgb[i] = palette[random.nextInt(palette.length)];
+		}
+
+		Color.setUseQuantizationTable(this.table);
+		Color.quantize(0x123456);
+	}
+
+	/**
+	 * Quantizes the colors one at a time.
+	 */
+	@Benchmark
+	public char[] single() {
+		for (int i = 0; i < this.rgb.length; i++) {
+			this.codes[i] = Color.quantize(this.rgb[i]);
+		}
+		return this.codes;
+	}
+
+	/**
+	 * Quantizes the colors as a batch.
+	 */
+	@Benchmark
+	public char[] batch() {
+		Color.quantize(this.rgb, this.codes);
+		return this.codes;
+	}
+
+}
@@ -0,0 +1,64 @@
+package dev.ethp.pal.text;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for removing the codes from legacy text strings.
+ * <p>
+ * {@code regex} is the usual approach of replacing every code with a regular expression.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LegacyTextBenchmark {
+
+	private static final Pattern CODES = Pattern.compile("(?i)\u00A7(x(\u00A7[0-9a-f]){6}|[0-9a-fk-or])");
+
+	@Param({"plain", "formatted"})
+	String kind;
+
+	private String text;
+	private StringBuilder buffer;
+
+	@Setup
+	public void setup() {
+		if (this.kind.equals("plain")) {
+			this.text = "Welcome to the server! Type /help for a list of commands, or visit our website.";
+		} else {
+			this.text = "\u00A76\u00A7lWelcome \u00A7rto the \u00A7x\u00A71\u00A72\u00A73\u00A74\u00A75\u00A76server\u00A7r! "
+					+ "Type \u00A7a/help\u00A7r for a list of \u00A7ocommands\u00A7r, or visit our \u00A79\u00A7nwebsite\u00A7r.";
+		}
+
+		this.buffer = new StringBuilder(this.text.length());
+	}
+
+	@Benchmark
+	public String regex() {
+		return CODES.matcher(this.text).replaceAll("");
+	}
+
+	@Benchmark
+	public String strip() {
+		return LegacyText.strip(this.text);
+	}
+
+	/**
+	 * Strips into a reused buffer.
+	 */
+	@Benchmark
+	public int stripBuffer() {
+		this.buffer.setLength(0);
+		return LegacyText.strip(this.text, false, this.buffer).length();
+	}
+
+	@Benchmark
+	public int visibleLength() {
+		return LegacyText.visibleLength(this.text);
+	}
+
+}
@@ -0,0 +1,83 @@
+package dev.ethp.pal.text.component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import dev.ethp.pal.client.Client;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for serializing text nodes as Minecraft text JSON.
+ * <p>
+ * {@code tree} is the previous approach of building a Gson tree with {@link Node#toJson(Client)} and serializing it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeJsonBenchmark {
+
+	private static final Gson GSON = new Gson();
+
+	private List<TextNode> nodes;
+	private StringBuilder buffer;
+
+	@Setup
+	public void setup() {
+		this.nodes = Node.parse("\u00A76\u00A7lWelcome \u00A7rto the \u00A7x\u00A71\u00A72\u00A73\u00A74\u00A75\u00A76server\u00A7r! "
+				+ "Type \u00A7a/help\u00A7r for a list of \u00A7ocommands\u00A7r, or visit our \u00A79\u00A7nwebsite\u00A7r.");
+		this.buffer = new StringBuilder(512);
+	}
+
+	@Benchmark
+	public int tree() {
+		int length = 0;
+		for (TextNode node : this.nodes) {
+			length += GSON.toJson(node.toJson(Client.DEFAULT_1_16_0)).length();
+		}
+
+		return length;
+	}
+
+	@Benchmark
+	public int string() {
+		int length = 0;
+		for (TextNode node : this.nodes) {
+			length += node.toJsonString(Client.DEFAULT_1_16_0).length();
+		}
+
+		return length;
+	}
+
+	/**
+	 * Appends every node to a reused buffer.
+	 */
+	@Benchmark
+	public int appendBuffer() {
+		this.buffer.setLength(0);
+		for (TextNode node : this.nodes) {
+			node.appendJsonTo(this.buffer, Client.DEFAULT_1_16_0);
+		}
+
+		return this.buffer.length();
+	}
+
+	@Benchmark
+	public int jsonWriter() throws IOException {
+		StringWriter out = new StringWriter(512);
+		JsonWriter writer = new JsonWriter(out);
+		writer.beginArray();
+		for (TextNode node : this.nodes) {
+			node.writeJson(writer, Client.DEFAULT_1_16_0);
+		}
+
+		writer.endArray();
+		return out.getBuffer().length();
+	}
+
+}
@@ -3,7 +3,7 @@ package dev.ethp.pal.client
 import dev.ethp.apistub.Export
 import dev.ethp.pal.util.Version
 import java.util.*
-import kotlin.collections.HashMap
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * A Minecraft client version.
@@ -31,7 +31,7 @@ class ClientVersion(major: Int, minor: Int, patch: Int) : Version(major, minor,
 		// region: Parsing
 		// ----------------------------------------
 
-		private val VERSION_CACHE: HashMap<String, ClientVersion> = HashMap()
+		private val VERSION_CACHE: ConcurrentHashMap<String, ClientVersion> = ConcurrentHashMap()
 
 		/**
 		 * Parses a Minecraft version string into a [ClientVersion].
@@ -45,20 +45,28 @@ class ClientVersion(major: Int, minor: Int, patch: Int) : Version(major, minor,
 		@Export
 		@JvmStatic
 		fun parse(version: String): Optional<ClientVersion> {
+			return Optional.ofNullable(parseOrNull(version))
+		}
+
+		/**
+		 * Parses a Minecraft version string into a [ClientVersion].
+		 * Client versions are cached, so parsing a version string again does not allocate.
+		 *
+		 * @param version The version string to parse.
+		 * @return The client version, or null if an invalid version string is provided.
+		 *
+		 * @since 1.0
+		 */
+		@Export
+		@JvmStatic
+		fun parseOrNull(version: String): ClientVersion? {
 			val cached = VERSION_CACHE[version]
-			if (cached != null) return Optional.of(cached)
+			if (cached != null) return cached
 
 			// Create a new version.
-			val versionObject = Version.parse(version).map {
-				ClientVersion(it.major, it.minor, it.patch)
-			}
-			
-			if (!versionObject.isPresent) {
-				return versionObject
-			}
-			
-			VERSION_CACHE[version] = versionObject.get()
-			return versionObject
+			val parsed = Version.parseOrNull(version) ?: return null
+			val versionObject = ClientVersion(parsed.major, parsed.minor, parsed.patch)
+			return VERSION_CACHE.putIfAbsent(version, versionObject) ?: versionObject
 		}
 
 		/**
@@ -74,9 +82,7 @@ class ClientVersion(major: Int, minor: Int, patch: Int) : Version(major, minor,
 		@Export
 		@JvmStatic
 		fun parseUnsafe(version: String): ClientVersion {
-			return parse(version).orElseThrow {
-				throw IllegalArgumentException("Invalid version string: $version")
-			}
+			return parseOrNull(version) ?: throw IllegalArgumentException("Invalid version string: $version")
 		}
 
 		// ----------------------------------------
@@ -0,0 +1,231 @@
+package dev.ethp.pal.math
+
+import kotlin.math.sqrt
+
+
+/**
+ * A formula for the perceived difference between two colors.
+ *
+ * Colors are first converted into the coordinates used by the metric with [prepare], and then compared with [delta].
+ * This allows a color to be converted once and compared against many other colors without allocating.
+ *
+ * @property name The name of the metric.
+ * @property stride The number of values written by [prepare] for each color.
+ */
+abstract class ColorMetric protected constructor(val name: String, val stride: Int) {
+
+	/**
+	 * Converts a RGB integer into the coordinates used by this metric.
+	 *
+	 * @param rgb The RGB color in 00RRGGBB format.
+	 * @param out The array to write the coordinates into.
+	 * @param offset The index of the first coordinate in the output array.
+	 */
+	abstract fun prepare(rgb: Int, out: DoubleArray, offset: Int)
+
+	/**
+	 * Calculates the difference between two prepared colors.
+	 *
+	 * Some metrics are not symmetric.
+	 * When comparing a color against a palette, the palette color should be the reference color.
+	 *
+	 * @param reference The array containing the coordinates of the reference color.
+	 * @param referenceOffset The index of the first coordinate of the reference color.
+	 * @param sample The array containing the coordinates of the sample color.
+	 * @param sampleOffset The index of the first coordinate of the sample color.
+	 * @return The color difference.
+	 */
+	abstract fun delta(reference: DoubleArray, referenceOffset: Int, sample: DoubleArray, sampleOffset: Int): Double
+
+	/**
+	 * Calculates the difference between two RGB integers.
+	 *
+	 * @param reference The reference RGB color in 00RRGGBB format.
+	 * @param sample The sample RGB color in 00RRGGBB format.
+	 * @return The color difference.
+	 */
+	fun delta(reference: Int, sample: Int): Double {
+		val buffer = DoubleArray(stride * 2)
+		prepare(reference, buffer, 0)
+		prepare(sample, buffer, stride)
+		return delta(buffer, 0, buffer, stride)
+	}
+
+	/**
+	 * Gets a lower bound for the difference between two colors that are some distance apart along one coordinate.
+	 *
+	 * This is used to skip colors when searching a [Palette], and must satisfy
+	 * `delta(reference, sample) >= axisBound(axis) * abs(reference[axis] - sample[axis])` for any two colors.
+	 * Returning zero is always correct, but prevents any colors from being skipped.
+	 *
+	 * @param axis The index of the coordinate, from zero to two.
+	 * @return The lower bound per unit of distance.
+	 */
+	open fun axisBound(axis: Int): Double {
+		return 0.0
+	}
+
+	override fun toString(): String {
+		return name
+	}
+
+	// -------------------------------------------------------------------------------------------------------------
+	// Implementations:
+	// -------------------------------------------------------------------------------------------------------------
+
+	private class Cie76 : ColorMetric("CIE76", 3) {
+
+		override fun prepare(rgb: Int, out: DoubleArray, offset: Int) {
+			ColorSpace.rgbToLAB(rgb, out, offset)
+		}
+
+		override fun delta(reference: DoubleArray, referenceOffset: Int, sample: DoubleArray, sampleOffset: Int): Double {
+			val dL = reference[referenceOffset + 0] - sample[sampleOffset + 0]
+			val da = reference[referenceOffset + 1] - sample[sampleOffset + 1]
+			val db = reference[referenceOffset + 2] - sample[sampleOffset + 2]
+			return sqrt((dL * dL) + (da * da) + (db * db))
+		}
+
+		override fun axisBound(axis: Int): Double {
+			return 1.0
+		}
+
+	}
+
+	private class Cie94 : ColorMetric("CIE94", 3) {
+
+		override fun prepare(rgb: Int, out: DoubleArray, offset: Int) {
+			ColorSpace.rgbToLAB(rgb, out, offset)
+		}
+
+		override fun delta(reference: DoubleArray, referenceOffset: Int, sample: DoubleArray, sampleOffset: Int): Double {
+			// http://www.easyrgb.com/en/math.php
+			// Graphic arts weighting factors.
+			val L1 = reference[referenceOffset + 0]
+			val a1 = reference[referenceOffset + 1]
+			val b1 = reference[referenceOffset + 2]
+			val L2 = sample[sampleOffset + 0]
+			val a2 = sample[sampleOffset + 1]
+			val b2 = sample[sampleOffset + 2]
+
+			val C1 = sqrt((a1 * a1) + (b1 * b1))
+			val C2 = sqrt((a2 * a2) + (b2 * b2))
+
+			val dL = L1 - L2
+			val dC = C1 - C2
+			val da = a1 - a2
+			val db = b1 - b2
+			val dH2 = maxOf(0.0, (da * da) + (db * db) - (dC * dC))
+
+			val SC = 1.0 + 0.045 * C1
+			val SH = 1.0 + 0.015 * C1
+			return sqrt((dL * dL) + (dC * dC) / (SC * SC) + dH2 / (SH * SH))
+		}
+
+		override fun axisBound(axis: Int): Double {
+			// The a and b differences are divided by at most SC, which is largest for the most saturated sRGB color.
+			return if (axis == 0) 1.0 else 1.0 / (1.0 + 0.045 * MAX_CHROMA)
+		}
+
+	}
+
+	private class Cie2000 : ColorMetric("CIEDE2000", 4) {
+
+		override fun prepare(rgb: Int, out: DoubleArray, offset: Int) {
+			// The chroma is stored after the LAB triplet, so that it's only calculated once per color.
+			ColorSpace.rgbToLAB(rgb, out, offset)
+			val a = out[offset + 1]
+			val b = out[offset + 2]
+			out[offset + 3] = sqrt((a * a) + (b * b))
+		}
+
+		override fun delta(reference: DoubleArray, referenceOffset: Int, sample: DoubleArray, sampleOffset: Int): Double {
+			return ColorSpace.deltaLAB(
+					reference[referenceOffset + 0], reference[referenceOffset + 1], reference[referenceOffset + 2], reference[referenceOffset + 3],
+					sample[sampleOffset + 0], sample[sampleOffset + 1], sample[sampleOffset + 2], sample[sampleOffset + 3]
+			)
+		}
+
+		override fun axisBound(axis: Int): Double {
+			// The rotation term is at most sqrt(3) times the product of the chroma and hue terms, so together they are
+			// at least (1 - sqrt(3) / 2) times the squared a' and b' distance divided by the largest SC or SH.
+			// SL is largest at L = 0 or L = 100, and a' is at least a.
+			return if (axis == 0) {
+				1.0 / (1.0 + 0.015 * 2500.0 / sqrt(2520.0))
+			} else {
+				sqrt(1.0 - sqrt(3.0) / 2.0) / (1.0 + 0.045 * 1.5 * MAX_CHROMA)
+			}
+		}
+
+	}
+
+	private class Redmean : ColorMetric("REDMEAN", 3) {
+
+		override fun prepare(rgb: Int, out: DoubleArray, offset: Int) {
+			out[offset + 0] = ((rgb shr 16) and 0xFF).toDouble()
+			out[offset + 1] = ((rgb shr 8) and 0xFF).toDouble()
+			out[offset + 2] = ((rgb shr 0) and 0xFF).toDouble()
+		}
+
+		override fun delta(reference: DoubleArray, referenceOffset: Int, sample: DoubleArray, sampleOffset: Int): Double {
+			// https://www.compuphase.com/cmetric.htm
+			val rmean = (reference[referenceOffset + 0] + sample[sampleOffset + 0]) / 2.0
+			val dR = reference[referenceOffset + 0] - sample[sampleOffset + 0]
+			val dG = reference[referenceOffset + 1] - sample[sampleOffset + 1]
+			val dB = reference[referenceOffset + 2] - sample[sampleOffset + 2]
+			return sqrt(((2.0 + rmean / 256.0) * dR * dR) + (4.0 * dG * dG) + ((2.0 + (255.0 - rmean) / 256.0) * dB * dB))
+		}
+
+		override fun axisBound(axis: Int): Double {
+			// Every channel is weighted by at least two.
+			return sqrt(2.0)
+		}
+
+	}
+
+	companion object {
+
+		/**
+		 * An upper bound for the chroma of any sRGB color in LAB space.
+		 */
+		private const val MAX_CHROMA = 135.0
+
+		/**
+		 * The CIE 1976 color difference.
+		 * This is the euclidean distance between two LAB colors.
+		 */
+		@JvmField
+		val CIE76: ColorMetric = Cie76()
+
+		/**
+		 * The CIE 1994 color difference, using the graphic arts weighting factors.
+		 * This is not symmetric.
+		 */
+		@JvmField
+		val CIE94: ColorMetric = Cie94()
+
+		/**
+		 * The CIE Delta E 2000 color difference.
+		 * This is the most accurate, and the most expensive, metric.
+		 */
+		@JvmField
+		val CIEDE2000: ColorMetric = Cie2000()
+
+		/**
+		 * A weighted euclidean distance between two RGB colors, where the weights depend on the mean red value.
+		 * This does not require converting to LAB, and is the cheapest metric.
+		 */
+		@JvmField
+		val REDMEAN: ColorMetric = Redmean()
+
+		/**
+		 * A list of all the built-in color metrics.
+		 */
+		@JvmStatic
+		fun values(): List<ColorMetric> {
+			return listOf(CIE76, CIE94, CIEDE2000, REDMEAN)
+		}
+
+	}
+
+}
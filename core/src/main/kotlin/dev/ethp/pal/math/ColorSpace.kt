@@ -1,6 +1,5 @@
 package dev.ethp.pal.math
 
-import java.lang.Math.pow
 import kotlin.math.*
 
 
@@ -38,17 +37,9 @@ class ColorSpace {
 		 * XYZ is D65/2° standard illuminant.
 		 */
 		fun toXYZ(): XYZ {
-			// http://www.easyrgb.com/en/math.php
-			// https://en.wikipedia.org/wiki/SRGB#The_reverse_transformation
-			var R = 100 * if (this.R > 0.04045) ((this.R + 0.055) / 1.055).pow(2.4) else (this.R / 12.92)
-			var G = 100 * if (this.G > 0.04045) ((this.G + 0.055) / 1.055).pow(2.4) else (this.G / 12.92)
-			var B = 100 * if (this.B > 0.04045) ((this.B + 0.055) / 1.055).pow(2.4) else (this.B / 12.92)
-
-			return XYZ(
-					(R * 0.41239080) + (G * 0.35758434) + (B * 0.18048079),
-					(R * 0.21263901) + (G * 0.71516868) + (B * 0.07219232),
-					(R * 0.01933082) + (G * 0.11919478) + (B * 0.95053215),
-			)
+			val xyz = DoubleArray(3)
+			rgbToXYZ(this.R, this.G, this.B, xyz, 0)
+			return XYZ(xyz[0], xyz[1], xyz[2])
 		}
 
 		/**
@@ -57,6 +48,15 @@ class ColorSpace {
 		fun toLAB(): LAB {
 			return this.toXYZ().toLAB(XYZ.REFERENCE_D65)
 		}
+
+		/**
+		 * Converts the RGB triplet to an OKLab triplet.
+		 */
+		fun toOKLab(): OKLab {
+			val lab = DoubleArray(3)
+			linearToOKLab(linearize(this.R) / 100.0, linearize(this.G) / 100.0, linearize(this.B) / 100.0, lab, 0)
+			return OKLab(lab[0], lab[1], lab[2])
+		}
 	}
 
 	data class XYZ(val X: Double, val Y: Double, val Z: Double) {
@@ -68,25 +68,20 @@ class ColorSpace {
 		 * @param reference The reference XYZ triplet.
 		 */
 		fun toLAB(reference: XYZ): LAB {
-			// http://www.easyrgb.com/en/math.php
-			// Divide by the reference XYZ.
-			var X = this.X / reference.X
-			var Y = this.Y / reference.Y
-			var Z = this.Z / reference.Z
-
-			// Convert to LAB.
-			X = if (X > 0.008856) X.pow(1.0 / 3.0) else (7.787 * X) + (16.0 / 116.0)
-			Y = if (Y > 0.008856) Y.pow(1.0 / 3.0) else (7.787 * Y) + (16.0 / 116.0)
-			Z = if (Z > 0.008856) Z.pow(1.0 / 3.0) else (7.787 * Z) + (16.0 / 116.0)
-
-			return LAB(
-					(116.0 * Y) - 16.0,
-					500.0 * (X - Y),
-					200.0 * (Y - Z)
-			)
+			val lab = DoubleArray(3)
+			xyzToLAB(this.X, this.Y, this.Z, reference, lab, 0)
+			return LAB(lab[0], lab[1], lab[2])
 		}
 
-		// TODO: toRGB
+		/**
+		 * Converts the XYZ triplet to a RGB triplet.
+		 * XYZ is D65/2° standard illuminant, and colors outside of the sRGB gamut are clipped.
+		 */
+		fun toRGB(): RGB {
+			val linear = DoubleArray(3)
+			xyzToLinear(this.X, this.Y, this.Z, linear, 0)
+			return RGB(delinearize(linear[0]), delinearize(linear[1]), delinearize(linear[2]))
+		}
 
 		companion object {
 
@@ -98,59 +93,511 @@ class ColorSpace {
 
 	data class LAB(val L: Double, val a: Double, val b: Double) {
 
+		/**
+		 * Calculates the difference between two LAB triplets using the CIE Delta E 2000 formula.
+		 *
+		 * @param other The other LAB triplet.
+		 * @return The color difference.
+		 */
 		fun delta(other: LAB): Double {
+			return deltaLAB(this.L, this.a, this.b, other.L, other.a, other.b)
+		}
+
+		/**
+		 * Converts the LAB triplet to a XYZ triplet.
+		 *
+		 * @param reference The reference XYZ triplet.
+		 */
+		fun toXYZ(reference: XYZ): XYZ {
+			val xyz = DoubleArray(3)
+			labToXYZ(this.L, this.a, this.b, reference, xyz, 0)
+			return XYZ(xyz[0], xyz[1], xyz[2])
+		}
+
+		/**
+		 * Converts the LAB triplet to a RGB triplet.
+		 * Assumes D65 reference (Daylight, sRGB, Adobe-RGB).
+		 */
+		fun toRGB(): RGB {
+			return this.toXYZ(XYZ.REFERENCE_D65).toRGB()
+		}
+
+	}
+
+	/**
+	 * An OKLab color value.
+	 * This is a perceptual color space that is better suited to blending colors than LAB.
+	 *
+	 * https://bottosson.github.io/posts/oklab/
+	 */
+	data class OKLab(val L: Double, val a: Double, val b: Double) {
+
+		/**
+		 * Converts the OKLab triplet to a RGB triplet.
+		 * Colors outside of the sRGB gamut are clipped.
+		 */
+		fun toRGB(): RGB {
+			val linear = DoubleArray(3)
+			okLabToLinear(this.L, this.a, this.b, linear, 0)
+			return RGB(
+					delinearize(linear[0] * 100.0),
+					delinearize(linear[1] * 100.0),
+					delinearize(linear[2] * 100.0)
+			)
+		}
+
+	}
+
+	companion object {
+
+		// ----------------------------------------
+		// region: Transfer Functions
+		// ----------------------------------------
+
+		/**
+		 * The linearized values of every 8-bit sRGB channel value, scaled from 0 to 100.
+		 * These are identical to the values calculated by [linearize].
+		 */
+		private val LINEAR_RGB: DoubleArray = DoubleArray(256) { c -> linearize(c.toDouble() / 0xFF) }
+
+		/**
+		 * Converts a sRGB channel value to a linear value, scaled from 0 to 100.
+		 *
+		 * @param c The channel value, from 0.0 to 1.0.
+		 * @return The linear channel value.
+		 */
+		@JvmStatic
+		private fun linearize(c: Double): Double {
 			// http://www.easyrgb.com/en/math.php
-			// https://github.com/wuchubuzai/OpenIMAJ/blob/master/image/image-processing/src/main/java/org/openimaj/image/analysis/colour/CIEDE2000.java
-			val KL = 1.0
-			val KC = 1.0
-			val KH = 1.0
+			// https://en.wikipedia.org/wiki/SRGB#The_reverse_transformation
+			return 100 * if (c > 0.04045) ((c + 0.055) / 1.055).pow(2.4) else (c / 12.92)
+		}
+
+		/**
+		 * Converts linear RGB values to a XYZ triplet.
+		 */
+		@JvmStatic
+		private fun linearToXYZ(R: Double, G: Double, B: Double, out: DoubleArray, offset: Int) {
+			out[offset + 0] = (R * 0.41239080) + (G * 0.35758434) + (B * 0.18048079)
+			out[offset + 1] = (R * 0.21263901) + (G * 0.71516868) + (B * 0.07219232)
+			out[offset + 2] = (R * 0.01933082) + (G * 0.11919478) + (B * 0.95053215)
+		}
 
-			val Lmean = (this.L + other.L) / 2.0
-			val C1 = sqrt((this.a * this.a) + (this.b * this.b))
-			val C2 = sqrt((other.a * other.a) + (other.b * other.b))
+		/**
+		 * Converts a linear channel value, scaled from 0 to 100, to a sRGB channel value.
+		 *
+		 * @param c The linear channel value.
+		 * @return The channel value, clipped to 0.0 to 1.0.
+		 */
+		@JvmStatic
+		private fun delinearize(c: Double): Double {
+			// https://en.wikipedia.org/wiki/SRGB#The_forward_transformation_(CIE_XYZ_to_sRGB)
+			val linear = c / 100.0
+			val encoded = if (linear > 0.0031308) (1.055 * linear.pow(1.0 / 2.4)) - 0.055 else (linear * 12.92)
+			return encoded.coerceIn(0.0, 1.0)
+		}
 
-			val Cmean = (C1 + C2) / 2.0
-			
-			val G = (1 - sqrt(Cmean.pow(7.0) / (Cmean.pow(7.0) + 25.0.pow(7.0)))) / 2.0
+		/**
+		 * The smallest linear value, scaled from 0 to 100, that rounds up to each 8-bit sRGB channel value.
+		 */
+		private val ENCODE_THRESHOLDS: DoubleArray = DoubleArray(256) { v -> linearize((v - 0.5) / 0xFF) }
+
+		/**
+		 * The number of buckets in [ENCODE_TABLE].
+		 */
+		private const val ENCODE_TABLE_SIZE = 4096
+
+		/**
+		 * The smallest 8-bit sRGB channel value in each bucket of linear values.
+		 * The buckets evenly divide the linear values from 0 to 100.
+		 */
+		private val ENCODE_TABLE: IntArray = IntArray(ENCODE_TABLE_SIZE).also { table ->
+			var v = 0
+			for (i in table.indices) {
+				val start = i * (100.0 / ENCODE_TABLE_SIZE)
+				while (v < 0xFF && start >= ENCODE_THRESHOLDS[v + 1]) v++
+				table[i] = v
+			}
+		}
+
+		/**
+		 * Converts a linear channel value, scaled from 0 to 100, to the nearest 8-bit sRGB channel value.
+		 *
+		 * This looks up the bucket containing the linear value in [ENCODE_TABLE], and then steps up through the
+		 * [ENCODE_THRESHOLDS] inside the bucket. The result is identical to rounding the value from [delinearize].
+		 *
+		 * @param c The linear channel value.
+		 * @return The channel value, clipped to 0 to 255.
+		 */
+		@JvmStatic
+		private fun encode(c: Double): Int {
+			if (!(c > 0.0)) return 0
+			if (c >= 100.0) return 0xFF
+
+			var v = ENCODE_TABLE[(c * (ENCODE_TABLE_SIZE / 100.0)).toInt()]
+			while (v < 0xFF && c >= ENCODE_THRESHOLDS[v + 1]) v++
+			return v
+		}
+
+		/**
+		 * Converts a XYZ triplet to linear RGB values, scaled from 0 to 100.
+		 */
+		@JvmStatic
+		private fun xyzToLinear(x: Double, y: Double, z: Double, out: DoubleArray, offset: Int) {
+			out[offset + 0] = (x * 3.24096994) + (y * -1.53738318) + (z * -0.49861076)
+			out[offset + 1] = (x * -0.96924364) + (y * 1.87596750) + (z * 0.04155506)
+			out[offset + 2] = (x * 0.05563008) + (y * -0.20397696) + (z * 1.05697151)
+		}
+
+		/**
+		 * Converts linear RGB values, scaled from 0 to 1, to an OKLab triplet.
+		 */
+		@JvmStatic
+		private fun linearToOKLab(R: Double, G: Double, B: Double, out: DoubleArray, offset: Int) {
+			// https://bottosson.github.io/posts/oklab/
+			val l = Math.cbrt((R * 0.4122214708) + (G * 0.5363325363) + (B * 0.0514459929))
+			val m = Math.cbrt((R * 0.2119034982) + (G * 0.6806995451) + (B * 0.1073969566))
+			val s = Math.cbrt((R * 0.0883024619) + (G * 0.2817188376) + (B * 0.6299787005))
+
+			out[offset + 0] = (l * 0.2104542553) + (m * 0.7936177850) + (s * -0.0040720468)
+			out[offset + 1] = (l * 1.9779984951) + (m * -2.4285922050) + (s * 0.4505937099)
+			out[offset + 2] = (l * 0.0259040371) + (m * 0.7827717662) + (s * -0.8086757660)
+		}
+
+		/**
+		 * Converts an OKLab triplet to linear RGB values, scaled from 0 to 1.
+		 */
+		@JvmStatic
+		private fun okLabToLinear(L: Double, a: Double, b: Double, out: DoubleArray, offset: Int) {
+			// https://bottosson.github.io/posts/oklab/
+			val l0 = L + (a * 0.3963377774) + (b * 0.2158037573)
+			val m0 = L + (a * -0.1055613458) + (b * -0.0638541728)
+			val s0 = L + (a * -0.0894841775) + (b * -1.2914855480)
+			val l = l0 * l0 * l0
+			val m = m0 * m0 * m0
+			val s = s0 * s0 * s0
+
+			out[offset + 0] = (l * 4.0767416621) + (m * -3.3077115913) + (s * 0.2309699292)
+			out[offset + 1] = (l * -1.2684380046) + (m * 2.6097574011) + (s * -0.3413193965)
+			out[offset + 2] = (l * -0.0041960863) + (m * -0.7034186147) + (s * 1.7076147010)
+		}
+
+		/**
+		 * Calculates the cube root of a positive number without using [Math.pow].
+		 *
+		 * This makes an initial guess by dividing the floating point exponent by three, and then refines it with two
+		 * iterations of Halley's method. Over the range used by the LAB transfer function (0.008856 to 1.5), the
+		 * relative error compared to `pow(x, 1.0 / 3.0)` is less than 1e-14.
+		 *
+		 * @param x The number.
+		 * @return The cube root of the number.
+		 */
+		@JvmStatic
+		private fun cubeRoot(x: Double): Double {
+			var y = java.lang.Double.longBitsToDouble(java.lang.Double.doubleToRawLongBits(x) / 3 + 0x2A9F7893782DA1CEL)
+			var y3 = y * y * y
+			y *= (y3 + 2 * x) / (2 * y3 + x)
+			y3 = y * y * y
+			y *= (y3 + 2 * x) / (2 * y3 + x)
+			return y
+		}
+
+		// ----------------------------------------
+		// endregion
+		// region: Primitive Conversions
+		// ----------------------------------------
+
+		/**
+		 * Converts a RGB integer to a XYZ triplet.
+		 * XYZ is D65/2° standard illuminant.
+		 *
+		 * @param rgb The RGB color in 00RRGGBB format.
+		 * @param out The array to write the X, Y, and Z values into.
+		 * @param offset The index of the X value in the output array.
+		 */
+		@JvmStatic
+		fun rgbToXYZ(rgb: Int, out: DoubleArray, offset: Int) {
+			linearToXYZ(
+					LINEAR_RGB[(rgb shr 16) and 0xFF],
+					LINEAR_RGB[(rgb shr 8) and 0xFF],
+					LINEAR_RGB[(rgb shr 0) and 0xFF],
+					out, offset
+			)
+		}
+
+		/**
+		 * Converts a RGB triplet to a XYZ triplet.
+		 * XYZ is D65/2° standard illuminant.
+		 *
+		 * @param r The red value, from 0.0 to 1.0.
+		 * @param g The green value, from 0.0 to 1.0.
+		 * @param b The blue value, from 0.0 to 1.0.
+		 * @param out The array to write the X, Y, and Z values into.
+		 * @param offset The index of the X value in the output array.
+		 */
+		@JvmStatic
+		fun rgbToXYZ(r: Double, g: Double, b: Double, out: DoubleArray, offset: Int) {
+			linearToXYZ(linearize(r), linearize(g), linearize(b), out, offset)
+		}
+
+		/**
+		 * Converts a XYZ triplet to a LAB triplet.
+		 *
+		 * @param x The X value.
+		 * @param y The Y value.
+		 * @param z The Z value.
+		 * @param reference The reference XYZ triplet.
+		 * @param out The array to write the L, A, and B values into.
+		 * @param offset The index of the L value in the output array.
+		 */
+		@JvmStatic
+		fun xyzToLAB(x: Double, y: Double, z: Double, reference: XYZ, out: DoubleArray, offset: Int) {
+			// http://www.easyrgb.com/en/math.php
+			// Divide by the reference XYZ.
+			var X = x / reference.X
+			var Y = y / reference.Y
+			var Z = z / reference.Z
+
+			// Convert to LAB.
+			X = if (X > 0.008856) cubeRoot(X) else (7.787 * X) + (16.0 / 116.0)
+			Y = if (Y > 0.008856) cubeRoot(Y) else (7.787 * Y) + (16.0 / 116.0)
+			Z = if (Z > 0.008856) cubeRoot(Z) else (7.787 * Z) + (16.0 / 116.0)
+
+			out[offset + 0] = (116.0 * Y) - 16.0
+			out[offset + 1] = 500.0 * (X - Y)
+			out[offset + 2] = 200.0 * (Y - Z)
+		}
+
+		/**
+		 * Converts a RGB integer to a LAB triplet.
+		 * Assumes D65 reference (Daylight, sRGB, Adobe-RGB).
+		 *
+		 * @param rgb The RGB color in 00RRGGBB format.
+		 * @param out The array to write the L, A, and B values into.
+		 * @param offset The index of the L value in the output array.
+		 */
+		@JvmStatic
+		fun rgbToLAB(rgb: Int, out: DoubleArray, offset: Int) {
+			rgbToXYZ(rgb, out, offset)
+			xyzToLAB(out[offset + 0], out[offset + 1], out[offset + 2], XYZ.REFERENCE_D65, out, offset)
+		}
+
+		/**
+		 * Converts a LAB triplet to a XYZ triplet.
+		 *
+		 * @param L The L value.
+		 * @param a The A value.
+		 * @param b The B value.
+		 * @param reference The reference XYZ triplet.
+		 * @param out The array to write the X, Y, and Z values into.
+		 * @param offset The index of the X value in the output array.
+		 */
+		@JvmStatic
+		fun labToXYZ(L: Double, a: Double, b: Double, reference: XYZ, out: DoubleArray, offset: Int) {
+			// http://www.easyrgb.com/en/math.php
+			var Y = (L + 16.0) / 116.0
+			var X = (a / 500.0) + Y
+			var Z = Y - (b / 200.0)
+
+			// Convert from LAB.
+			val X3 = X * X * X
+			val Y3 = Y * Y * Y
+			val Z3 = Z * Z * Z
+			X = if (X3 > 0.008856) X3 else (X - (16.0 / 116.0)) / 7.787
+			Y = if (Y3 > 0.008856) Y3 else (Y - (16.0 / 116.0)) / 7.787
+			Z = if (Z3 > 0.008856) Z3 else (Z - (16.0 / 116.0)) / 7.787
+
+			// Multiply by the reference XYZ.
+			out[offset + 0] = X * reference.X
+			out[offset + 1] = Y * reference.Y
+			out[offset + 2] = Z * reference.Z
+		}
+
+		/**
+		 * Converts a XYZ triplet to a RGB integer.
+		 * XYZ is D65/2° standard illuminant, and colors outside of the sRGB gamut are clipped.
+		 *
+		 * @param x The X value.
+		 * @param y The Y value.
+		 * @param z The Z value.
+		 * @param scratch An array with at least three values, used to hold the linear RGB values.
+		 * @return The RGB color in 00RRGGBB format.
+		 */
+		@JvmStatic
+		fun xyzToRGB(x: Double, y: Double, z: Double, scratch: DoubleArray): Int {
+			xyzToLinear(x, y, z, scratch, 0)
+			return (encode(scratch[0]) shl 16) or (encode(scratch[1]) shl 8) or encode(scratch[2])
+		}
+
+		/**
+		 * Converts a LAB triplet to a RGB integer.
+		 * Assumes D65 reference (Daylight, sRGB, Adobe-RGB), and colors outside of the sRGB gamut are clipped.
+		 *
+		 * @param L The L value.
+		 * @param a The A value.
+		 * @param b The B value.
+		 * @param scratch An array with at least three values, used to hold intermediate values.
+		 * @return The RGB color in 00RRGGBB format.
+		 */
+		@JvmStatic
+		fun labToRGB(L: Double, a: Double, b: Double, scratch: DoubleArray): Int {
+			labToXYZ(L, a, b, XYZ.REFERENCE_D65, scratch, 0)
+			return xyzToRGB(scratch[0], scratch[1], scratch[2], scratch)
+		}
 
-			val a1prime = this.a * (1.0 + G)
-			val a2prime = other.a * (1.0 + G)
+		/**
+		 * Converts a RGB integer to an OKLab triplet.
+		 *
+		 * @param rgb The RGB color in 00RRGGBB format.
+		 * @param out The array to write the L, A, and B values into.
+		 * @param offset The index of the L value in the output array.
+		 */
+		@JvmStatic
+		fun rgbToOKLab(rgb: Int, out: DoubleArray, offset: Int) {
+			linearToOKLab(
+					LINEAR_RGB[(rgb shr 16) and 0xFF] / 100.0,
+					LINEAR_RGB[(rgb shr 8) and 0xFF] / 100.0,
+					LINEAR_RGB[(rgb shr 0) and 0xFF] / 100.0,
+					out, offset
+			)
+		}
+
+		/**
+		 * Converts an OKLab triplet to a RGB integer.
+		 * Colors outside of the sRGB gamut are clipped.
+		 *
+		 * @param L The L value.
+		 * @param a The A value.
+		 * @param b The B value.
+		 * @param scratch An array with at least three values, used to hold the linear RGB values.
+		 * @return The RGB color in 00RRGGBB format.
+		 */
+		@JvmStatic
+		fun okLabToRGB(L: Double, a: Double, b: Double, scratch: DoubleArray): Int {
+			okLabToLinear(L, a, b, scratch, 0)
+			return (encode(scratch[0] * 100.0) shl 16) or (encode(scratch[1] * 100.0) shl 8) or encode(scratch[2] * 100.0)
+		}
 
-			val C1prime = sqrt((a1prime * a1prime) + (this.b * this.b))
-			val C2prime = sqrt((a2prime * a2prime) + (other.b * other.b))
+		/**
+		 * Calculates the difference between two LAB triplets using the CIE Delta E 2000 formula.
+		 *
+		 * @param lab1 The array containing the first LAB triplet.
+		 * @param offset1 The index of the first L value.
+		 * @param lab2 The array containing the second LAB triplet.
+		 * @param offset2 The index of the second L value.
+		 * @return The color difference.
+		 */
+		@JvmStatic
+		fun deltaLAB(lab1: DoubleArray, offset1: Int, lab2: DoubleArray, offset2: Int): Double {
+			return deltaLAB(
+					lab1[offset1 + 0], lab1[offset1 + 1], lab1[offset1 + 2],
+					lab2[offset2 + 0], lab2[offset2 + 1], lab2[offset2 + 2]
+			)
+		}
 
-			val Cmeanprime = (C1prime + C2prime) / 2.0 
-			
-			val h1prime = atan2(this.b, a1prime) + 2 * Math.PI * if (atan2(this.b, a1prime) < 0) 1.0 else 0.0
-			val h2prime = atan2(other.b, a2prime) + 2 * Math.PI * if (atan2(other.b, a2prime) < 0) 1.0 else 0.0
-			val Hmeanprime = if (abs(h1prime - h2prime) > Math.PI) (h1prime + h2prime + 2 * Math.PI) / 2.0 else (h1prime + h2prime) / 2.0
+		/**
+		 * Calculates the difference between two LAB triplets using the CIE Delta E 2000 formula.
+		 *
+		 * @return The color difference.
+		 */
+		@JvmStatic
+		fun deltaLAB(L1: Double, a1: Double, b1: Double, L2: Double, a2: Double, b2: Double): Double {
+			return deltaLAB(
+					L1, a1, b1, sqrt((a1 * a1) + (b1 * b1)),
+					L2, a2, b2, sqrt((a2 * a2) + (b2 * b2))
+			)
+		}
 
-			val T = 1.0 - 0.17 * cos(Hmeanprime - Math.PI / 6.0) + 0.24 * cos(2.0 * Hmeanprime) + 0.32 * cos(3.0 * Hmeanprime + Math.PI / 30.0) - 0.2 * cos(4.0 * Hmeanprime - 21.0 * Math.PI / 60.0)
-			val deltahprime = if (abs(h1prime - h2prime) <= Math.PI) h2prime - h1prime else if (h2prime <= h1prime) h2prime - h1prime + 2.0 * Math.PI else h2prime - h1prime - 2.0 * Math.PI
-			
-			val deltaLprime: Double = other.L - this.L
+		/**
+		 * Calculates the difference between two LAB triplets using the CIE Delta E 2000 formula.
+		 * The chroma of each color is passed in, so that it can be computed once per color instead of once per pair.
+		 *
+		 * @param C1 The chroma of the first color, `sqrt(a1² + b1²)`.
+		 * @param C2 The chroma of the second color, `sqrt(a2² + b2²)`.
+		 * @return The color difference.
+		 */
+		internal fun deltaLAB(L1: Double, a1: Double, b1: Double, C1: Double, L2: Double, a2: Double, b2: Double, C2: Double): Double {
+			// http://www.easyrgb.com/en/math.php
+			// https://github.com/wuchubuzai/OpenIMAJ/blob/master/image/image-processing/src/main/java/org/openimaj/image/analysis/colour/CIEDE2000.java
+			//
+			// The terms depending on G (a', C', h') can't be cached per color, since G depends on the mean chroma.
+			// Powers are expanded into multiplications, each hue angle uses a single atan2, and the cosines in T are
+			// derived from a single sin/cos pair with the multiple-angle identities.
+			val Lmean = (L1 + L2) / 2.0
+			val Cmean = (C1 + C2) / 2.0
+			val G = (1.0 - sqrt(pow7Ratio(Cmean))) / 2.0
+
+			val a1prime = a1 * (1.0 + G)
+			val a2prime = a2 * (1.0 + G)
+
+			val C1prime = sqrt((a1prime * a1prime) + (b1 * b1))
+			val C2prime = sqrt((a2prime * a2prime) + (b2 * b2))
+			val Cmeanprime = (C1prime + C2prime) / 2.0
+
+			var h1prime = atan2(b1, a1prime)
+			var h2prime = atan2(b2, a2prime)
+			if (h1prime < 0) h1prime += 2.0 * Math.PI
+			if (h2prime < 0) h2prime += 2.0 * Math.PI
+
+			val hdiff = h2prime - h1prime
+			val Hmeanprime = if (abs(hdiff) > Math.PI) (h1prime + h2prime + 2.0 * Math.PI) / 2.0 else (h1prime + h2prime) / 2.0
+			val deltahprime = if (abs(hdiff) <= Math.PI) hdiff else if (h2prime <= h1prime) hdiff + 2.0 * Math.PI else hdiff - 2.0 * Math.PI
+
+			val cos1 = cos(Hmeanprime)
+			val sin1 = sin(Hmeanprime)
+			val cos2 = 2.0 * cos1 * cos1 - 1.0
+			val sin2 = 2.0 * sin1 * cos1
+			val cos3 = cos1 * (4.0 * cos1 * cos1 - 3.0)
+			val sin3 = sin1 * (3.0 - 4.0 * sin1 * sin1)
+			val cos4 = 2.0 * cos2 * cos2 - 1.0
+			val sin4 = 2.0 * sin2 * cos2
+			val T = 1.0 -
+					0.17 * (cos1 * COS_PI_6 + sin1 * SIN_PI_6) +
+					0.24 * cos2 +
+					0.32 * (cos3 * COS_PI_30 - sin3 * SIN_PI_30) -
+					0.20 * (cos4 * COS_21PI_60 + sin4 * SIN_21PI_60)
+
+			val deltaLprime = L2 - L1
 			val deltaCprime = C2prime - C1prime
 			val deltaHprime = 2.0 * sqrt(C1prime * C2prime) * sin(deltahprime / 2.0)
 
-			val SL = 1.0 + 0.015 * (Lmean - 50) * (Lmean - 50) / sqrt(20 + (Lmean - 50) * (Lmean - 50))
+			val Lmean50 = (Lmean - 50.0) * (Lmean - 50.0)
+			val SL = 1.0 + 0.015 * Lmean50 / sqrt(20.0 + Lmean50)
 			val SC = 1.0 + 0.045 * Cmeanprime
 			val SH = 1.0 + 0.015 * Cmeanprime * T
 
+			val hue = (Hmeanprime * (180.0 / Math.PI) - 275.0) / 25.0
+			val deltaTheta = (Math.PI / 6.0) * exp(-(hue * hue))
+			val RC = 2.0 * sqrt(pow7Ratio(Cmeanprime))
+			val RT = -RC * sin(2.0 * deltaTheta)
 
-			val deltaTheta = 30 * Math.PI / 180 * Math.exp(-((180 / Math.PI * Hmeanprime - 275) / 25) * ((180 / Math.PI * Hmeanprime - 275) / 25))
-			val RC = 2 * sqrt(pow(Cmeanprime, 7.0) / (pow(Cmeanprime, 7.0) + pow(25.0, 7.0)))
-			val RT = -RC * sin(2 * deltaTheta)
+			val termL = deltaLprime / SL
+			val termC = deltaCprime / SC
+			val termH = deltaHprime / SH
+			return sqrt((termL * termL) + (termC * termC) + (termH * termH) + (RT * termC * termH))
+		}
 
-			return Math.sqrt(
-					deltaLprime / (KL * SL) * (deltaLprime / (KL * SL)) +
-							deltaCprime / (KC * SC) * (deltaCprime / (KC * SC)) +
-							deltaHprime / (KH * SH) * (deltaHprime / (KH * SH)) +
-							RT * (deltaCprime / (KC * SC)) * (deltaHprime / (KH * SH))
-			)
+		/**
+		 * Calculates `C⁷ / (C⁷ + 25⁷)`.
+		 */
+		private fun pow7Ratio(C: Double): Double {
+			val C2 = C * C
+			val C7 = C2 * C2 * C2 * C
+			return C7 / (C7 + POW_25_7)
 		}
 
+		private const val POW_25_7 = 6103515625.0
+		private val COS_PI_6 = cos(Math.PI / 6.0)
+		private val SIN_PI_6 = sin(Math.PI / 6.0)
+		private val COS_PI_30 = cos(Math.PI / 30.0)
+		private val SIN_PI_30 = sin(Math.PI / 30.0)
+		private val COS_21PI_60 = cos(21.0 * Math.PI / 60.0)
+		private val SIN_21PI_60 = sin(21.0 * Math.PI / 60.0)
 
-	}
+		// ----------------------------------------
+		// endregion
+		// ----------------------------------------
 
+	}
 
 }
@@ -0,0 +1,150 @@
+package dev.ethp.pal.math
+
+import kotlin.math.roundToInt
+
+
+/**
+ * A gradient between evenly spaced RGB colors.
+ *
+ * The colors are converted into the interpolation space once, so sampling the gradient only blends two triplets and
+ * converts the result back to RGB. To color text one character at a time, use [sample] to precompute every color
+ * into an array.
+ *
+ * @param colors The RGB colors in 00RRGGBB format.
+ * @param space The color space used to blend the colors.
+ */
+class Gradient @JvmOverloads constructor(colors: IntArray, val space: Space = Space.OKLAB) {
+
+	/**
+	 * A color space that colors can be blended in.
+	 */
+	enum class Space {
+
+		/**
+		 * Blends the sRGB channel values.
+		 * This is the cheapest, but darkens and desaturates the middle of the gradient.
+		 */
+		RGB,
+
+		/**
+		 * Blends the CIE LAB coordinates.
+		 */
+		LAB,
+
+		/**
+		 * Blends the OKLab coordinates.
+		 * This keeps the hue and lightness of the gradient the most even.
+		 */
+		OKLAB
+
+	}
+
+	/**
+	 * The RGB colors in 00RRGGBB format.
+	 */
+	private val colors: IntArray = IntArray(colors.size) { i -> colors[i] and 0xFFFFFF }
+
+	/**
+	 * The coordinates of every color in the interpolation space.
+	 */
+	private val coordinates: DoubleArray
+
+	init {
+		if (colors.isEmpty()) {
+			throw IllegalArgumentException("A gradient needs at least one color.")
+		}
+
+		coordinates = DoubleArray(this.colors.size * 3)
+		for (i in this.colors.indices) {
+			val rgb = this.colors[i]
+			when (space) {
+				Space.RGB -> {
+					coordinates[i * 3 + 0] = ((rgb shr 16) and 0xFF).toDouble()
+					coordinates[i * 3 + 1] = ((rgb shr 8) and 0xFF).toDouble()
+					coordinates[i * 3 + 2] = ((rgb shr 0) and 0xFF).toDouble()
+				}
+				Space.LAB -> ColorSpace.rgbToLAB(rgb, coordinates, i * 3)
+				Space.OKLAB -> ColorSpace.rgbToOKLab(rgb, coordinates, i * 3)
+			}
+		}
+	}
+
+	/**
+	 * Gets the colors of the gradient.
+	 *
+	 * @return A copy of the RGB colors in 00RRGGBB format.
+	 */
+	fun toIntArray(): IntArray {
+		return colors.copyOf()
+	}
+
+	/**
+	 * Samples a color from the gradient.
+	 *
+	 * @param position The position along the gradient, from 0.0 to 1.0.
+	 * @return The RGB color in 00RRGGBB format.
+	 */
+	fun sample(position: Double): Int {
+		return sample(position, DoubleArray(3))
+	}
+
+	/**
+	 * Samples evenly spaced colors from the gradient.
+	 * The first and last colors are the first and last colors of the gradient.
+	 *
+	 * @param count The number of colors to sample.
+	 * @return The RGB colors in 00RRGGBB format.
+	 */
+	fun sample(count: Int): IntArray {
+		val out = IntArray(count)
+		sample(out, 0, count)
+		return out
+	}
+
+	/**
+	 * Samples evenly spaced colors from the gradient into an existing array.
+	 * The first and last colors are the first and last colors of the gradient.
+	 *
+	 * @param out The array to write the RGB colors into.
+	 * @param offset The index of the first color in the output array.
+	 * @param count The number of colors to sample.
+	 *
+	 * @throws IndexOutOfBoundsException When the range is outside the array.
+	 */
+	fun sample(out: IntArray, offset: Int, count: Int) {
+		if (count < 0 || offset < 0 || offset > out.size - count) {
+			throw IndexOutOfBoundsException("Invalid range of $count colors from $offset.")
+		}
+
+		val scratch = DoubleArray(3)
+		for (i in 0 until count) {
+			out[offset + i] = if (count == 1) colors[0] else sample(i.toDouble() / (count - 1), scratch)
+		}
+	}
+
+	private fun sample(position: Double, scratch: DoubleArray): Int {
+		val segments = colors.size - 1
+		if (segments == 0 || !(position > 0.0)) return colors[0]
+		if (position >= 1.0) return colors[segments]
+
+		val scaled = position * segments
+		val segment = minOf(scaled.toInt(), segments - 1)
+		val t = scaled - segment
+		val from = segment * 3
+		val to = from + 3
+
+		val c0 = coordinates[from + 0] + (coordinates[to + 0] - coordinates[from + 0]) * t
+		val c1 = coordinates[from + 1] + (coordinates[to + 1] - coordinates[from + 1]) * t
+		val c2 = coordinates[from + 2] + (coordinates[to + 2] - coordinates[from + 2]) * t
+		return when (space) {
+			Space.RGB -> (c0.roundToInt() shl 16) or (c1.roundToInt() shl 8) or c2.roundToInt()
+			Space.LAB -> ColorSpace.labToRGB(c0, c1, c2, scratch)
+			Space.OKLAB -> ColorSpace.okLabToRGB(c0, c1, c2, scratch)
+		}
+	}
+
+	override fun toString(): String {
+		return "Gradient(size=${colors.size}, space=$space)"
+	}
+
+}
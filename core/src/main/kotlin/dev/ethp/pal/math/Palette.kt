@@ -0,0 +1,483 @@
+package dev.ethp.pal.math
+
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.function.Supplier
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+import kotlin.math.abs
+
+
+/**
+ * A fixed set of RGB colors that other colors can be quantized to.
+ *
+ * Small palettes are searched by comparing against every color.
+ * Larger palettes are indexed with a k-d tree over the coordinates prepared by the metric, which are the
+ * [ColorSpace.LAB] coordinates for the CIE metrics. The tree is searched using [ColorMetric.axisBound] to skip colors
+ * that can't be closer than the best color found so far, so it always finds the same color as comparing against every
+ * color would.
+ *
+ * A palette is immutable and safe to share between threads.
+ *
+ * @param colors The RGB colors in 00RRGGBB format.
+ * @param metric The color difference formula used to find the nearest color.
+ * @param cacheSize The number of quantized colors to remember, or zero to disable the cache.
+ * @param tableSource Opens a quantization table written by [writeTable], or returns null if there is none.
+ */
+class Palette internal constructor(
+		colors: IntArray,
+		val metric: ColorMetric,
+		cacheSize: Int,
+		private val tableSource: Supplier<InputStream?>?
+) {
+
+	/**
+	 * Creates a new palette.
+	 *
+	 * @param colors The RGB colors in 00RRGGBB format.
+	 * @param metric The color difference formula used to find the nearest color.
+	 * @param cacheSize The number of quantized colors to remember, or zero to disable the cache.
+	 */
+	@JvmOverloads
+	constructor(colors: IntArray, metric: ColorMetric = ColorMetric.CIEDE2000, cacheSize: Int = 0)
+			: this(colors, metric, cacheSize, null)
+
+	/**
+	 * The RGB colors in 00RRGGBB format.
+	 */
+	private val colors: IntArray = IntArray(colors.size) { i -> colors[i] and 0xFFFFFF }
+
+	/**
+	 * The coordinates of every color, prepared for the metric.
+	 */
+	private val prepared: DoubleArray
+
+	/**
+	 * The k-d tree, stored as palette indices where the node of a range is in the middle of it.
+	 * This is null when the palette is searched without a tree.
+	 */
+	private val tree: IntArray?
+
+	/**
+	 * The axis each node of the tree splits along.
+	 */
+	private val axes: ByteArray?
+
+	/**
+	 * The [ColorMetric.axisBound] of each axis.
+	 */
+	private val bounds: DoubleArray = DoubleArray(3) { axis -> metric.axisBound(axis) }
+
+	/**
+	 * The cache of quantized colors.
+	 * Each entry holds the RGB color and [CACHE_PRESENT] in the upper half, and the palette index in the lower half.
+	 */
+	private val cache: AtomicLongArray?
+	private val cacheBits: Int
+
+	/**
+	 * The quantization table.
+	 * Each value is a palette index, or [TABLE_AMBIGUOUS].
+	 */
+	private val table: ShortArray by lazy { loadTable() ?: buildTable() }
+
+	init {
+		if (colors.isEmpty()) {
+			throw IllegalArgumentException("A palette needs at least one color.")
+		}
+
+		if (cacheSize < 0) {
+			throw IllegalArgumentException("Invalid cache size: $cacheSize")
+		}
+
+		val stride = metric.stride
+		prepared = DoubleArray(this.colors.size * stride)
+		for (i in this.colors.indices) {
+			metric.prepare(this.colors[i], prepared, i * stride)
+		}
+
+		if (this.colors.size <= BRUTE_FORCE_LIMIT) {
+			tree = null
+			axes = null
+		} else {
+			tree = IntArray(this.colors.size) { i -> i }
+			axes = ByteArray(this.colors.size)
+			buildTree(prepared, stride, tree, axes, 0, tree.size)
+		}
+
+		if (cacheSize == 0) {
+			cache = null
+			cacheBits = 0
+		} else {
+			cacheBits = maxOf(1, 32 - Integer.numberOfLeadingZeros(cacheSize - 1))
+			cache = AtomicLongArray(1 shl cacheBits)
+		}
+	}
+
+	/**
+	 * The number of colors in the palette.
+	 */
+	val size: Int
+		get() = colors.size
+
+	/**
+	 * Gets a color in the palette.
+	 *
+	 * @param index The index of the color.
+	 * @return The RGB color in 00RRGGBB format.
+	 */
+	operator fun get(index: Int): Int {
+		return colors[index]
+	}
+
+	/**
+	 * Gets the colors in the palette.
+	 *
+	 * @return A copy of the RGB colors in 00RRGGBB format.
+	 */
+	fun toIntArray(): IntArray {
+		return colors.copyOf()
+	}
+
+	/**
+	 * Finds the palette color that is most similar to a RGB color.
+	 *
+	 * @param rgb The RGB color in 00RRGGBB format.
+	 * @return The most similar RGB color in 00RRGGBB format.
+	 */
+	fun nearest(rgb: Int): Int {
+		return colors[nearestIndex(rgb)]
+	}
+
+	/**
+	 * Finds the index of the palette color that is most similar to a RGB color.
+	 *
+	 * @param rgb The RGB color in 00RRGGBB format.
+	 * @return The index of the most similar color.
+	 */
+	fun nearestIndex(rgb: Int): Int {
+		return nearestIndex(rgb, false, newScratch())
+	}
+
+	/**
+	 * Finds the index of the palette color that is most similar to a RGB color.
+	 *
+	 * The quantization table maps RGB values with [TABLE_BITS] bits per channel to the nearest color.
+	 * It is loaded or built on first use, and falls back to searching the palette for any cell where the nearest color is
+	 * ambiguous. Palettes with more than [Short.MAX_VALUE] colors do not have a table.
+	 *
+	 * @param rgb The RGB color in 00RRGGBB format.
+	 * @param useTable Whether to use the quantization table.
+	 * @return The index of the most similar color.
+	 */
+	fun nearestIndex(rgb: Int, useTable: Boolean): Int {
+		return nearestIndex(rgb, useTable, newScratch())
+	}
+
+	/**
+	 * Finds the index of the palette color that is most similar to a RGB color, using caller-provided buffers.
+	 *
+	 * @param rgb The RGB color in 00RRGGBB format.
+	 * @param useTable Whether to use the quantization table.
+	 * @param scratch The buffers from [newScratch]. These must not be shared between threads.
+	 * @return The index of the most similar color.
+	 */
+	internal fun nearestIndex(rgb: Int, useTable: Boolean, scratch: Scratch): Int {
+		val color = rgb and 0xFFFFFF
+
+		// Fast path: Quantization table.
+		if (useTable && colors.size <= Short.MAX_VALUE) {
+			val index = table[tableKey(color)]
+			if (index != TABLE_AMBIGUOUS) return index.toInt()
+		}
+
+		// Fast path: Cache.
+		val cache = cache ?: return search(color, scratch)
+		val slot = (color * CACHE_HASH) ushr (32 - cacheBits)
+		val entry = cache.get(slot)
+		if ((entry ushr 32).toInt() == (color or CACHE_PRESENT)) {
+			return entry.toInt()
+		}
+
+		val index = search(color, scratch)
+		cache.lazySet(slot, ((color or CACHE_PRESENT).toLong() shl 32) or index.toLong())
+		return index
+	}
+
+	/**
+	 * Creates the buffers used to search this palette.
+	 */
+	internal fun newScratch(): Scratch {
+		return Scratch(metric.stride)
+	}
+
+	/**
+	 * Writes the quantization table, so that it can be loaded instead of built.
+	 * The table is only loaded by a palette with the same colors and metric.
+	 *
+	 * @param out The stream to write to. This is not closed.
+	 *
+	 * @throws IOException When the stream can't be written to.
+	 * @throws UnsupportedOperationException When the palette has more than [Short.MAX_VALUE] colors.
+	 */
+	@Throws(IOException::class)
+	fun writeTable(out: OutputStream) {
+		if (colors.size > Short.MAX_VALUE) {
+			throw UnsupportedOperationException("A palette with ${colors.size} colors does not have a table.")
+		}
+
+		val gzip = GZIPOutputStream(out)
+		val data = DataOutputStream(gzip)
+		data.writeInt(TABLE_MAGIC)
+		data.writeByte(TABLE_BITS)
+		data.writeUTF(metric.name)
+		data.writeInt(colors.size)
+		for (color in colors) {
+			data.writeInt(color)
+		}
+
+		val bytes = ByteBuffer.allocate(table.size * 2)
+		bytes.asShortBuffer().put(table)
+		data.write(bytes.array())
+		data.flush()
+		gzip.finish()
+	}
+
+	override fun toString(): String {
+		return "Palette(size=${colors.size}, metric=$metric)"
+	}
+
+	// -------------------------------------------------------------------------------------------------------------
+	// Search:
+	// -------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Buffers used while searching a palette.
+	 */
+	internal class Scratch(stride: Int) {
+		val sample = DoubleArray(stride)
+		var bestIndex = 0
+		var bestDelta = 0.0
+	}
+
+	private fun search(rgb: Int, scratch: Scratch): Int {
+		return if (tree == null) searchAll(rgb, scratch) else searchTree(rgb, scratch)
+	}
+
+	private fun searchAll(rgb: Int, scratch: Scratch): Int {
+		// Fast path: Exact color.
+		for (i in colors.indices) {
+			if (colors[i] == rgb) return i
+		}
+
+		// Slow path: Approximation using the color metric.
+		var bestDelta = Double.MAX_VALUE
+		var bestIndex = 0
+		val stride = metric.stride
+		metric.prepare(rgb, scratch.sample, 0)
+		for (i in colors.indices) {
+			val delta = metric.delta(prepared, i * stride, scratch.sample, 0)
+			if (delta < bestDelta) {
+				bestDelta = delta
+				bestIndex = i
+			}
+		}
+
+		return bestIndex
+	}
+
+	private fun searchTree(rgb: Int, scratch: Scratch): Int {
+		metric.prepare(rgb, scratch.sample, 0)
+		scratch.bestIndex = 0
+		scratch.bestDelta = Double.MAX_VALUE
+		searchNode(scratch, 0, colors.size)
+		return scratch.bestIndex
+	}
+
+	private fun searchNode(scratch: Scratch, from: Int, to: Int) {
+		if (from >= to) return
+
+		val middle = (from + to) ushr 1
+		val index = tree!![middle]
+		val axis = axes!![middle].toInt()
+		val stride = metric.stride
+		val sample = scratch.sample
+
+		// Ties are broken by the lowest index, the same as comparing against every color.
+		val delta = metric.delta(prepared, index * stride, sample, 0)
+		if (delta < scratch.bestDelta || (delta == scratch.bestDelta && index < scratch.bestIndex)) {
+			scratch.bestDelta = delta
+			scratch.bestIndex = index
+		}
+
+		// Search the side of the split containing the sample first, then the other side if it could be closer.
+		val split = sample[axis] - prepared[index * stride + axis]
+		val bound = bounds[axis] * abs(split)
+		if (split < 0) {
+			searchNode(scratch, from, middle)
+			if (bound <= scratch.bestDelta) searchNode(scratch, middle + 1, to)
+		} else {
+			searchNode(scratch, middle + 1, to)
+			if (bound <= scratch.bestDelta) searchNode(scratch, from, middle)
+		}
+	}
+
+	private fun loadTable(): ShortArray? {
+		val source = tableSource ?: return null
+		try {
+			val input = source.get() ?: return null
+			return DataInputStream(GZIPInputStream(input)).use { data -> readTable(data) }
+		} catch (ex: IOException) {
+			return null
+		}
+	}
+
+	/**
+	 * Reads a quantization table written by [writeTable].
+	 *
+	 * @return The table, or null if it was written for a different palette.
+	 */
+	private fun readTable(data: DataInputStream): ShortArray? {
+		if (data.readInt() != TABLE_MAGIC) return null
+		if (data.readByte().toInt() != TABLE_BITS) return null
+		if (data.readUTF() != metric.name) return null
+		if (data.readInt() != colors.size) return null
+		for (color in colors) {
+			if (data.readInt() != color) return null
+		}
+
+		val bytes = ByteArray(2 shl (TABLE_BITS * 3))
+		data.readFully(bytes)
+
+		val table = ShortArray(1 shl (TABLE_BITS * 3))
+		ByteBuffer.wrap(bytes).asShortBuffer().get(table)
+		for (index in table) {
+			if (index < TABLE_AMBIGUOUS || index >= colors.size) return null
+		}
+
+		return table
+	}
+
+	private fun buildTable(): ShortArray {
+		val cells = 1 shl TABLE_BITS
+		val step = 256 shr TABLE_BITS
+		val lattice = cells + 1
+
+		// Quantize the corners of every cell.
+		// Neighbouring cells share corners, so each one only needs to be calculated once.
+		val corners = ShortArray(lattice * lattice * lattice)
+		val scratch = newScratch()
+		for (r in 0 until lattice) {
+			for (g in 0 until lattice) {
+				for (b in 0 until lattice) {
+					val rgb = (minOf(r * step, 0xFF) shl 16) or (minOf(g * step, 0xFF) shl 8) or minOf(b * step, 0xFF)
+					corners[(r * lattice + g) * lattice + b] = search(rgb, scratch).toShort()
+				}
+			}
+		}
+
+		// A cell is resolved when all of its corners quantize to the same color.
+		val table = ShortArray(cells * cells * cells)
+		for (r in 0 until cells) {
+			for (g in 0 until cells) {
+				for (b in 0 until cells) {
+					val base = (r * lattice + g) * lattice + b
+					val index = corners[base]
+					val resolved = index == corners[base + 1] &&
+							index == corners[base + lattice] &&
+							index == corners[base + lattice + 1] &&
+							index == corners[base + lattice * lattice] &&
+							index == corners[base + lattice * lattice + 1] &&
+							index == corners[base + lattice * lattice + lattice] &&
+							index == corners[base + lattice * lattice + lattice + 1]
+
+					table[(((r shl TABLE_BITS) or g) shl TABLE_BITS) or b] = if (resolved) index else TABLE_AMBIGUOUS
+				}
+			}
+		}
+
+		return table
+	}
+
+	companion object {
+
+		/**
+		 * The number of bits per channel used to index the quantization table.
+		 */
+		const val TABLE_BITS = 6
+
+		/**
+		 * The largest palette that is searched by comparing against every color.
+		 */
+		private const val BRUTE_FORCE_LIMIT = 32
+
+		/**
+		 * The quantization table value for a cell that does not resolve to a single color.
+		 */
+		private const val TABLE_AMBIGUOUS: Short = -1
+
+		/**
+		 * The first four bytes of a quantization table written by [writeTable].
+		 */
+		private const val TABLE_MAGIC = 0x50414C54
+
+		/**
+		 * The multiplier used to hash colors into the cache.
+		 */
+		private const val CACHE_HASH = -0x61c88647
+
+		/**
+		 * A bit set on every cached color, so that an empty entry never matches.
+		 */
+		private const val CACHE_PRESENT = 0x1000000
+
+		@JvmStatic
+		private fun tableKey(rgb: Int): Int {
+			val shift = 8 - TABLE_BITS
+			val r = (rgb shr (16 + shift)) and ((1 shl TABLE_BITS) - 1)
+			val g = (rgb shr (8 + shift)) and ((1 shl TABLE_BITS) - 1)
+			val b = (rgb shr shift) and ((1 shl TABLE_BITS) - 1)
+			return (((r shl TABLE_BITS) or g) shl TABLE_BITS) or b
+		}
+
+		@JvmStatic
+		private fun buildTree(coordinates: DoubleArray, stride: Int, tree: IntArray, axes: ByteArray, from: Int, to: Int) {
+			if (to - from <= 1) return
+
+			// Split along the axis with the largest spread.
+			var axis = 0
+			var spread = -1.0
+			for (a in 0 until 3) {
+				var min = Double.POSITIVE_INFINITY
+				var max = Double.NEGATIVE_INFINITY
+				for (i in from until to) {
+					val value = coordinates[tree[i] * stride + a]
+					if (value < min) min = value
+					if (value > max) max = value
+				}
+
+				if (max - min > spread) {
+					spread = max - min
+					axis = a
+				}
+			}
+
+			val sorted = tree.copyOfRange(from, to).sortedBy { index -> coordinates[index * stride + axis] }
+			for (i in sorted.indices) {
+				tree[from + i] = sorted[i]
+			}
+
+			val middle = (from + to) ushr 1
+			axes[middle] = axis.toByte()
+			buildTree(coordinates, stride, tree, axes, from, middle)
+			buildTree(coordinates, stride, tree, axes, middle + 1, to)
+		}
+
+	}
+
+}
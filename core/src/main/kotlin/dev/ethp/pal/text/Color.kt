@@ -1,8 +1,16 @@
 package dev.ethp.pal.text
 
 import dev.ethp.apistub.Export
-import dev.ethp.pal.math.ColorSpace
+import dev.ethp.pal.math.ColorMetric
+import dev.ethp.pal.math.Palette
+import dev.ethp.pal.util.NameTable
+import java.io.IOException
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveAction
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.function.Supplier
 
 /**
  * A Minecraft text color.
@@ -48,6 +56,11 @@ final class Color {
 			return this._char
 		}
 
+	/**
+	 * The memoized legacy character code.
+	 * This is volatile so that a code quantized by one thread is visible to others.
+	 */
+	@Volatile
 	private var _char: Char
 
 	/**
@@ -57,6 +70,12 @@ final class Color {
 	 */
 	private val _property: String?
 
+	/**
+	 * The memoized hex name, for colors without a JSON property name.
+	 */
+	@Volatile
+	private var _hex: String? = null
+
 	/**
 	 * The name of the color.
 	 * 
@@ -66,7 +85,7 @@ final class Color {
 		@Export
 		get() {
 			if (this._property != null) return this._property
-			return String.format("#%06x", this.rgb)
+			return this._hex ?: rgbToHex(this.rgb, HEX_DIGITS_LOWER).also { this._hex = it }
 		}
 
 	/**
@@ -78,7 +97,7 @@ final class Color {
 		@Export
 		get() {
 			if (this._property != null) return this._property
-			return codeUnsafe(this.code)._property!!
+			return LEGACY_TABLE[codeToIndex(this.code)].color._property!!
 		}
 
 	/**
@@ -100,7 +119,34 @@ final class Color {
 	 */
 	@Export
 	fun toLegacyString(): String {
-		return "${SPECIFIER}${this.code}"
+		return LEGACY_STRINGS[codeToIndex(this.code)]
+	}
+
+	/**
+	 * Appends the color as a legacy Minecraft text string.
+	 *
+	 * @param out The appendable to append to.
+	 * @return The appendable.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	@Throws(IOException::class)
+	fun appendLegacyTo(out: Appendable): Appendable {
+		return out.append(SPECIFIER).append(this.code)
+	}
+
+	/**
+	 * Appends the color as a legacy Minecraft text string.
+	 *
+	 * @param out The string builder to append to.
+	 * @return The string builder.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun appendLegacyTo(out: StringBuilder): StringBuilder {
+		return out.append(SPECIFIER).append(this.code)
 	}
 
 	@Export
@@ -111,7 +157,7 @@ final class Color {
 
 	@Export
 	override fun toString(): String {
-		return String.format("#%06X", 0xFFFFFF and this.rgb)
+		return rgbToHex(this.rgb, HEX_DIGITS_UPPER)
 	}
 
 	@Export
@@ -134,6 +180,29 @@ final class Color {
 		internal const val SPECIFIER: Char = '\u00A7'
 		
 
+		// ----------------------------------------
+		// endregion
+		// region: Intern Pool
+		// ----------------------------------------
+
+		/**
+		 * The number of bits used to index the intern pool.
+		 */
+		private const val INTERN_POOL_BITS = 12
+
+		/**
+		 * The multiplier used to spread RGB values across the intern pool.
+		 */
+		private const val INTERN_POOL_HASH = -0x61c88647
+
+		/**
+		 * A pool of recently created RGB colors.
+		 *
+		 * This is a direct-mapped table: a new color replaces whichever color previously occupied its slot.
+		 * Canonical instances keep their quantized legacy code, so a color used repeatedly is only quantized once.
+		 */
+		private val INTERN_POOL: AtomicReferenceArray<Color> = AtomicReferenceArray(1 shl INTERN_POOL_BITS)
+
 		// ----------------------------------------
 		// endregion
 		// region: Colors
@@ -143,6 +212,8 @@ final class Color {
 		 * Creates a RGB color.
 		 * This is only supported on 1.16, and will be quantized for versions lower than 1.16.
 		 *
+		 * Recently created colors are pooled, so repeated calls with the same color usually return the same instance.
+		 *
 		 * @param rgb The RGB color in 00RRGGBB format.
 		 * @return The corresponding [Color] object.
 		 *
@@ -151,13 +222,22 @@ final class Color {
 		@JvmStatic
 		@Export
 		fun rgb(rgb: Int): Color {
-			return Color(rgb and 0xFFFFFF)
+			val value = rgb and 0xFFFFFF
+			val slot = (value * INTERN_POOL_HASH) ushr (32 - INTERN_POOL_BITS)
+			val pooled = INTERN_POOL.get(slot)
+			if (pooled != null && pooled.rgb == value) return pooled
+
+			val color = Color(value)
+			INTERN_POOL.lazySet(slot, color)
+			return color
 		}
 
 		/**
 		 * Creates a RGB color from a CSS color string.
 		 * This is only supported on 1.16, and will be quantized for versions lower than 1.16.
 		 *
+		 * The legacy RGB formats supported by [parseRgb] are also accepted.
+		 *
 		 * @param string The RGB string in CSS hex format.
 		 * @return The corresponding [Color] object.
 		 *
@@ -166,20 +246,8 @@ final class Color {
 		@JvmStatic
 		@Export
 		fun rgb(string: String): Optional<Color> {
-			if (string[0] != '#') return Optional.empty()
-			try {
-				return when (string.length) {
-					4 -> {
-						val n = string.substring(1).toInt(16)
-						val w = n and 0xF00 shl 8 or (n and 0x0F0 shl 4) or (n and 0x00F)
-						return Optional.of(rgb(w or (w shl 4)))
-					}
-					7 -> Optional.of(rgb(string.substring(1).toInt(16)))
-					else -> Optional.empty()
-				}
-			} catch (ex: NumberFormatException) {
-				return Optional.empty()
-			}
+			val rgb = parseRgb(string, 0, string.length)
+			return if (rgb == -1) Optional.empty() else Optional.of(rgb(rgb))
 		}
 
 		/**
@@ -202,6 +270,71 @@ final class Color {
 			}
 		}
 
+		/**
+		 * Parses a RGB color string inside a larger sequence of characters.
+		 *
+		 * The entire range must be one of these formats, where each `R`, `G`, and `B` is a hex digit:
+		 *
+		 *  - `#RGB`
+		 *  - `#RRGGBB`
+		 *  - `&#RRGGBB`
+		 *  - `§x§R§R§G§G§B§B`
+		 *
+		 * This does not allocate, and does not throw on invalid color strings.
+		 *
+		 * @param chars The characters.
+		 * @param offset The index of the first character of the color string.
+		 * @param length The number of characters in the color string.
+		 * @return The RGB color in 00RRGGBB format, or -1 if the color string is invalid.
+		 *
+		 * @throws IndexOutOfBoundsException When the range is outside the characters.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun parseRgb(chars: CharSequence, offset: Int, length: Int): Int {
+			if (length < 0 || offset < 0 || offset > chars.length - length) {
+				throw IndexOutOfBoundsException("Invalid range of $length characters from $offset.")
+			}
+
+			return when (length) {
+				4 -> {
+					if (chars[offset] != '#') return -1
+					val short = parseHex(chars, offset + 1, 3, 1)
+					if (short == -1) return -1
+					val wide = ((short and 0xF00) shl 8) or ((short and 0x0F0) shl 4) or (short and 0x00F)
+					wide or (wide shl 4)
+				}
+				7 -> if (chars[offset] != '#') -1 else parseHex(chars, offset + 1, 6, 1)
+				8 -> if (chars[offset] != '&' || chars[offset + 1] != '#') -1 else parseHex(chars, offset + 2, 6, 1)
+				14 -> {
+					for (i in 0 until 14 step 2) {
+						if (chars[offset + i] != SPECIFIER) return -1
+					}
+
+					if (chars[offset + 1] != 'x' && chars[offset + 1] != 'X') return -1
+					parseHex(chars, offset + 3, 6, 2)
+				}
+				else -> -1
+			}
+		}
+
+		/**
+		 * Parses a RGB color string.
+		 *
+		 * @param chars The color string.
+		 * @return The RGB color in 00RRGGBB format, or -1 if the color string is invalid.
+		 *
+		 * @see parseRgb
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun parseRgb(chars: CharSequence): Int {
+			return parseRgb(chars, 0, chars.length)
+		}
+
 		/**
 		 * Finds a Color from the legacy color code.
 		 *
@@ -236,9 +369,40 @@ final class Color {
 		@JvmStatic
 		@Export
 		fun codeUnsafe(code: Char): Color {
-			return codeToColor(code).orElseThrow {
-				IllegalArgumentException("'${code}' is not a valid color code.")
-			}
+			return codeOrNull(code) ?: throw IllegalArgumentException("'${code}' is not a valid color code.")
+		}
+
+		/**
+		 * Finds a Color from the legacy color code.
+		 * This does not allocate.
+		 *
+		 * This does *not* support formatting codes.
+		 * See [Formatting] for formatting codes.
+		 *
+		 * @param code The code character.
+		 * @return The corresponding [Color] object, or null if the code is invalid.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun codeOrNull(code: Char): Color? {
+			val index = codeToIndex(code)
+			return if (index == -1) null else LEGACY_TABLE[index].color
+		}
+
+		/**
+		 * Finds the index of a legacy color code in [values].
+		 *
+		 * @param code The code character.
+		 * @return The index of the corresponding legacy color, or -1 if the code is invalid.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun indexOf(code: Char): Int {
+			return codeToIndex(code)
 		}
 
 		/**
@@ -252,7 +416,43 @@ final class Color {
 		@JvmStatic
 		@Export
 		fun name(name: String): Optional<Color> {
-			return Optional.ofNullable(LEGACY_NAMETABLE[name.toUpperCase().replace(' ', '_')])
+			return Optional.ofNullable(LEGACY_NAMETABLE[name])
+		}
+
+		/**
+		 * Finds a Color from the legacy color name inside a larger sequence of characters.
+		 *
+		 * The name is case insensitive, and spaces are treated the same as underscores.
+		 * This does not allocate.
+		 *
+		 * @param chars The characters.
+		 * @param offset The index of the first character of the name.
+		 * @param length The number of characters in the name.
+		 * @return The corresponding [Color] object, or null if the name is invalid.
+		 *
+		 * @throws IndexOutOfBoundsException When the range is outside the characters.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun nameOrNull(chars: CharSequence, offset: Int, length: Int): Color? {
+			return LEGACY_NAMETABLE[chars, offset, length]
+		}
+
+		/**
+		 * Finds a Color from the legacy color name.
+		 *
+		 * @param name The legacy color name (case insensitive).
+		 * @return The corresponding [Color] object, or null if the name is invalid.
+		 *
+		 * @see nameOrNull
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun nameOrNull(name: CharSequence): Color? {
+			return LEGACY_NAMETABLE[name]
 		}
 
 		/**
@@ -472,7 +672,6 @@ final class Color {
 		// ----------------------------------------
 
 		private data class LegacyColor(val color: Color) {
-			val lab: ColorSpace.LAB = ColorSpace.RGB(color.rgb).toLAB()
 			val rgb: Int
 				inline get() = color.rgb
 		}
@@ -484,7 +683,17 @@ final class Color {
 				LegacyColor(RED), LegacyColor(LIGHT_PURPLE), LegacyColor(YELLOW), LegacyColor(WHITE)
 		)
 
-		private val LEGACY_NAMETABLE: Map<String, Color> = mapOf(
+		/**
+		 * The legacy color code of every color in [LEGACY_TABLE].
+		 */
+		private val LEGACY_CODES: CharArray = CharArray(LEGACY_TABLE.size) { i -> LEGACY_TABLE[i].color._char }
+
+		/**
+		 * The legacy string of every legacy color, indexed the same as [LEGACY_TABLE].
+		 */
+		private val LEGACY_STRINGS: Array<String> = Array(LEGACY_TABLE.size) { i -> "${SPECIFIER}${LEGACY_CODES[i]}" }
+
+		private val LEGACY_NAMETABLE: NameTable<Color> = NameTable(
 				"BLACK" to BLACK, "DARK_BLUE" to DARK_BLUE, "DARK_GREEN" to DARK_GREEN, "DARK_AQUA" to DARK_AQUA,
 				"DARK_RED" to DARK_RED, "DARK_PURPLE" to DARK_PURPLE, "GOLD" to GOLD, "GRAY" to GRAY,
 				"DARK_GRAY" to DARK_GRAY, "BLUE" to BLUE, "GREEN" to GREEN, "AQUA" to AQUA,
@@ -506,28 +715,349 @@ final class Color {
 
 		// ----------------------------------------
 		// endregion
-		// region: Legacy Color Conversion
+		// region: Quantization
 		// ----------------------------------------
 
+		/**
+		 * Whether RGB colors are quantized using a precomputed lookup table.
+		 *
+		 * A table is built once for each [ColorMetric] on first use and shared between threads.
+		 * It maps RGB values with [Palette.TABLE_BITS] bits per channel to the closest legacy color, and falls back
+		 * to comparing against every legacy color for any cell where the closest legacy color is ambiguous.
+		 *
+		 * @since 1.0
+		 */
 		@JvmStatic
-		private fun rgbToCode(rgb: Int): Char {
-			// Fast path: Exact color.
-			// Slow path: Approximation using Delta E 2000.
-			return LEGACY_TABLE.find { color -> color.rgb == rgb }?.color?._char ?: run {
-				var bestDelta = Double.MAX_VALUE
-				var bestColor = LEGACY_TABLE[0]
-				val lab = ColorSpace.RGB(rgb).toLAB()
-				for (color in LEGACY_TABLE) {
-					val delta = color.lab.delta(lab)
-					if (delta < bestDelta) {
-						bestDelta = delta
-						bestColor = color
-					}
+		@Volatile
+		var useQuantizationTable: Boolean = false
+			@Export get
+			@Export set
+
+		/**
+		 * The color difference formula used to quantize RGB colors.
+		 *
+		 * This defaults to [ColorMetric.CIEDE2000], which is the most accurate and most expensive metric.
+		 * Changing this clears the pool of recently created colors, so [Color.rgb] returns colors that are quantized
+		 * with the new metric.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		var metric: ColorMetric
+			@Export get() = selectedQuantizer?.metric ?: ColorMetric.CIEDE2000
+			@Export set(value) {
+				selectedQuantizer = quantizerFor(value)
+				for (slot in 0 until INTERN_POOL.length()) {
+					INTERN_POOL.set(slot, null)
+				}
+			}
+
+		/**
+		 * The palette of legacy colors used to quantize RGB colors with the current [metric].
+		 * The index of each color in the palette is the same as its index in [values].
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		val palette: Palette
+			@Export get() = quantizer
+
+		/**
+		 * Quantizes a RGB color to the most similar legacy color code.
+		 *
+		 * Unlike [Color.code], this does not remember the result.
+		 *
+		 * @param rgb The RGB color in 00RRGGBB format.
+		 * @return The legacy color code.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun quantize(rgb: Int): Char {
+			return rgbToCode(rgb and 0xFFFFFF)
+		}
+
+		/**
+		 * Quantizes a RGB color to the most similar legacy color code, using a specific color metric.
+		 *
+		 * @param rgb The RGB color in 00RRGGBB format.
+		 * @param metric The color difference formula.
+		 * @return The legacy color code.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun quantize(rgb: Int, metric: ColorMetric): Char {
+			val quantizer = quantizerFor(metric)
+			return LEGACY_CODES[quantizer.nearestIndex(rgb, useQuantizationTable)]
+		}
+
+		/**
+		 * Quantizes RGB colors to their most similar legacy color codes.
+		 *
+		 * Repeated colors are only quantized once, and large arrays are split across the common fork-join pool.
+		 *
+		 * @param rgb The RGB colors in 00RRGGBB format.
+		 * @param codes The array to write the legacy color codes into.
+		 *
+		 * @throws IndexOutOfBoundsException When the codes array is smaller than the RGB array.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun quantize(rgb: IntArray, codes: CharArray) {
+			quantize(rgb, 0, codes, 0, rgb.size)
+		}
+
+		/**
+		 * Quantizes RGB colors to their most similar legacy color codes.
+		 *
+		 * Repeated colors are only quantized once, and large arrays are split across the common fork-join pool.
+		 *
+		 * @param rgb The RGB colors in 00RRGGBB format.
+		 * @param rgbOffset The index of the first RGB color.
+		 * @param codes The array to write the legacy color codes into.
+		 * @param codesOffset The index of the first legacy color code.
+		 * @param length The number of colors to quantize.
+		 *
+		 * @throws IndexOutOfBoundsException When either range is outside its array.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun quantize(rgb: IntArray, rgbOffset: Int, codes: CharArray, codesOffset: Int, length: Int) {
+			quantize(rgb, rgbOffset, codes, codesOffset, length, quantizer.metric)
+		}
+
+		/**
+		 * Quantizes RGB colors to their most similar legacy color codes, using a specific color metric.
+		 *
+		 * Repeated colors are only quantized once, and large arrays are split across the common fork-join pool.
+		 *
+		 * @param rgb The RGB colors in 00RRGGBB format.
+		 * @param rgbOffset The index of the first RGB color.
+		 * @param codes The array to write the legacy color codes into.
+		 * @param codesOffset The index of the first legacy color code.
+		 * @param length The number of colors to quantize.
+		 * @param metric The color difference formula.
+		 *
+		 * @throws IndexOutOfBoundsException When either range is outside its array.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun quantize(rgb: IntArray, rgbOffset: Int, codes: CharArray, codesOffset: Int, length: Int, metric: ColorMetric) {
+			checkQuantizeRange(rgb.size, rgbOffset, codes.size, codesOffset, length)
+			quantizeRange(QuantizeTask(quantizerFor(metric), rgb, rgbOffset, codes, null, codesOffset, 0, length))
+		}
+
+		/**
+		 * Quantizes RGB colors to their most similar legacy color codes.
+		 * Each code is written as its ASCII byte.
+		 *
+		 * Repeated colors are only quantized once, and large arrays are split across the common fork-join pool.
+		 *
+		 * @param rgb The RGB colors in 00RRGGBB format.
+		 * @param codes The array to write the legacy color codes into.
+		 *
+		 * @throws IndexOutOfBoundsException When the codes array is smaller than the RGB array.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun quantize(rgb: IntArray, codes: ByteArray) {
+			quantize(rgb, 0, codes, 0, rgb.size)
+		}
+
+		/**
+		 * Quantizes RGB colors to their most similar legacy color codes.
+		 * Each code is written as its ASCII byte.
+		 *
+		 * Repeated colors are only quantized once, and large arrays are split across the common fork-join pool.
+		 *
+		 * @param rgb The RGB colors in 00RRGGBB format.
+		 * @param rgbOffset The index of the first RGB color.
+		 * @param codes The array to write the legacy color codes into.
+		 * @param codesOffset The index of the first legacy color code.
+		 * @param length The number of colors to quantize.
+		 *
+		 * @throws IndexOutOfBoundsException When either range is outside its array.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun quantize(rgb: IntArray, rgbOffset: Int, codes: ByteArray, codesOffset: Int, length: Int) {
+			quantize(rgb, rgbOffset, codes, codesOffset, length, quantizer.metric)
+		}
+
+		/**
+		 * Quantizes RGB colors to their most similar legacy color codes, using a specific color metric.
+		 * Each code is written as its ASCII byte.
+		 *
+		 * Repeated colors are only quantized once, and large arrays are split across the common fork-join pool.
+		 *
+		 * @param rgb The RGB colors in 00RRGGBB format.
+		 * @param rgbOffset The index of the first RGB color.
+		 * @param codes The array to write the legacy color codes into.
+		 * @param codesOffset The index of the first legacy color code.
+		 * @param length The number of colors to quantize.
+		 * @param metric The color difference formula.
+		 *
+		 * @throws IndexOutOfBoundsException When either range is outside its array.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun quantize(rgb: IntArray, rgbOffset: Int, codes: ByteArray, codesOffset: Int, length: Int, metric: ColorMetric) {
+			checkQuantizeRange(rgb.size, rgbOffset, codes.size, codesOffset, length)
+			quantizeRange(QuantizeTask(quantizerFor(metric), rgb, rgbOffset, null, codes, codesOffset, 0, length))
+		}
+
+		/**
+		 * The number of colors below which a batch is quantized on the calling thread.
+		 */
+		private const val QUANTIZATION_PARALLEL_THRESHOLD = 8192
+
+		/**
+		 * The number of bits used to index the memo of recently quantized colors in a batch.
+		 */
+		private const val QUANTIZATION_MEMO_BITS = 8
+
+		/**
+		 * A batch quantization job over a range of an RGB array.
+		 * Exactly one of [chars] or [bytes] is used as the output.
+		 */
+		private class QuantizeTask(
+				val quantizer: Palette,
+				val rgb: IntArray, val rgbOffset: Int,
+				val chars: CharArray?, val bytes: ByteArray?, val outOffset: Int,
+				val from: Int, val to: Int
+		) : RecursiveAction() {
+
+			override fun compute() {
+				if (to - from <= QUANTIZATION_PARALLEL_THRESHOLD) {
+					quantizeSequential(this)
+					return
+				}
+
+				val middle = (from + to) ushr 1
+				invokeAll(
+						QuantizeTask(quantizer, rgb, rgbOffset, chars, bytes, outOffset, from, middle),
+						QuantizeTask(quantizer, rgb, rgbOffset, chars, bytes, outOffset, middle, to)
+				)
+			}
+
+		}
+
+		@JvmStatic
+		private fun checkQuantizeRange(rgbSize: Int, rgbOffset: Int, codesSize: Int, codesOffset: Int, length: Int) {
+			if (length < 0 || rgbOffset < 0 || codesOffset < 0 || rgbOffset > rgbSize - length || codesOffset > codesSize - length) {
+				throw IndexOutOfBoundsException("Invalid range of $length colors from $rgbOffset to $codesOffset.")
+			}
+		}
+
+		@JvmStatic
+		private fun quantizeRange(task: QuantizeTask) {
+			if (task.to - task.from <= QUANTIZATION_PARALLEL_THRESHOLD) {
+				quantizeSequential(task)
+			} else {
+				ForkJoinPool.commonPool().invoke(task)
+			}
+		}
+
+		@JvmStatic
+		private fun quantizeSequential(task: QuantizeTask) {
+			val rgb = task.rgb
+			val chars = task.chars
+			val bytes = task.bytes
+			val quantizer = task.quantizer
+			val useTable = useQuantizationTable
+			val scratch = quantizer.newScratch()
+
+			// Remember recently quantized colors, since batches tend to repeat the same few colors.
+			val memoKeys = IntArray(1 shl QUANTIZATION_MEMO_BITS) { -1 }
+			val memoCodes = CharArray(1 shl QUANTIZATION_MEMO_BITS)
+
+			for (i in task.from until task.to) {
+				val color = rgb[task.rgbOffset + i] and 0xFFFFFF
+				val slot = (color * INTERN_POOL_HASH) ushr (32 - QUANTIZATION_MEMO_BITS)
+
+				val code: Char
+				if (memoKeys[slot] == color) {
+					code = memoCodes[slot]
+				} else {
+					code = LEGACY_CODES[quantizer.nearestIndex(color, useTable, scratch)]
+					memoKeys[slot] = color
+					memoCodes[slot] = code
+				}
+
+				if (chars != null) {
+					chars[task.outOffset + i] = code
+				} else {
+					bytes!![task.outOffset + i] = code.toByte()
 				}
-				bestColor.color._char
 			}
 		}
 
+		/**
+		 * The legacy palettes for each color metric that has been used.
+		 */
+		private val QUANTIZERS: ConcurrentHashMap<ColorMetric, Palette> = ConcurrentHashMap()
+
+		/**
+		 * The legacy palette for the [metric] that was selected, or null if the default metric is used.
+		 */
+		@Volatile
+		private var selectedQuantizer: Palette? = null
+
+		/**
+		 * The legacy palette for the current [metric].
+		 * The default palette is only prepared the first time a color is quantized, not when this class is loaded.
+		 */
+		private val quantizer: Palette
+			get() = selectedQuantizer ?: DefaultQuantizer.PALETTE
+
+		private object DefaultQuantizer {
+			val PALETTE: Palette = quantizerFor(ColorMetric.CIEDE2000)
+		}
+
+		@JvmStatic
+		private fun quantizerFor(metric: ColorMetric): Palette {
+			return QUANTIZERS.computeIfAbsent(metric) {
+				Palette(IntArray(LEGACY_TABLE.size) { i -> LEGACY_TABLE[i].rgb }, it, 0, Supplier {
+					Color::class.java.getResourceAsStream(quantizationTableResource(it))
+				})
+			}
+		}
+
+		/**
+		 * Gets the name of the resource containing the pregenerated quantization table for a metric.
+		 * These are generated at build time, and a table that is missing or out of date is built when it is needed.
+		 */
+		@JvmStatic
+		internal fun quantizationTableResource(metric: ColorMetric): String {
+			return "quantization/${metric.name.toLowerCase()}.bin"
+		}
+
+		// ----------------------------------------
+		// endregion
+		// region: Legacy Color Conversion
+		// ----------------------------------------
+
+		@JvmStatic
+		private fun rgbToCode(rgb: Int): Char {
+			val quantizer = quantizer
+			return LEGACY_CODES[quantizer.nearestIndex(rgb, useQuantizationTable)]
+		}
+
 		@JvmStatic
 		private fun rgbIsLegacy(rgb: Int): Boolean {
 			return LEGACY_TABLE.find { color -> color.rgb == rgb } != null
@@ -535,10 +1065,15 @@ final class Color {
 
 		@JvmStatic
 		private fun codeToColor(code: Char): Optional<Color> {
+			return Optional.ofNullable(codeOrNull(code))
+		}
+
+		@JvmStatic
+		private fun codeToIndex(code: Char): Int {
 			return when (code) {
-				in '0'..'9' -> Optional.of(LEGACY_TABLE[(code - '0')].color)
-				in 'a'..'f' -> Optional.of(LEGACY_TABLE[(code - 'a') + 10].color)
-				else -> Optional.empty()
+				in '0'..'9' -> code - '0'
+				in 'a'..'f' -> (code - 'a') + 10
+				else -> -1
 			}
 		}
 
@@ -547,6 +1082,60 @@ final class Color {
 			return codeToColor(code).map { color -> color.rgb }
 		}
 
+		private val HEX_DIGITS_LOWER: CharArray = "0123456789abcdef".toCharArray()
+		private val HEX_DIGITS_UPPER: CharArray = "0123456789ABCDEF".toCharArray()
+
+		/**
+		 * Encodes a RGB color as a `#RRGGBB` hex string.
+		 *
+		 * @param rgb The RGB color in 00RRGGBB format.
+		 * @param digits The characters used for each hex digit.
+		 * @return The hex string.
+		 */
+		@JvmStatic
+		private fun rgbToHex(rgb: Int, digits: CharArray): String {
+			val chars = CharArray(7)
+			chars[0] = '#'
+			for (i in 1..6) {
+				chars[i] = digits[(rgb shr ((6 - i) * 4)) and 0xF]
+			}
+
+			return String(chars)
+		}
+
+		/**
+		 * Parses hex digits that are evenly spaced apart.
+		 *
+		 * @return The parsed value, or -1 if any character is not a hex digit.
+		 */
+		@JvmStatic
+		private fun parseHex(chars: CharSequence, offset: Int, count: Int, step: Int): Int {
+			var value = 0
+			for (i in 0 until count) {
+				val digit = hexDigit(chars[offset + (i * step)])
+				if (digit == -1) return -1
+				value = (value shl 4) or digit
+			}
+
+			return value
+		}
+
+		/**
+		 * Gets the value of an ASCII hex digit.
+		 * Unlike [Character.digit], this does not accept other Unicode digits.
+		 *
+		 * @return The value of the digit, or -1 if the character is not a hex digit.
+		 */
+		@JvmStatic
+		internal fun hexDigit(c: Char): Int {
+			return when (c) {
+				in '0'..'9' -> c - '0'
+				in 'a'..'f' -> c - 'a' + 10
+				in 'A'..'F' -> c - 'A' + 10
+				else -> -1
+			}
+		}
+
 		//endregion
 		// ----------------------------------------
 
@@ -1,10 +1,12 @@
 package dev.ethp.pal.text
 
 import dev.ethp.apistub.Export
+import dev.ethp.pal.util.NameTable
+import java.io.IOException
 import java.util.*
+import java.util.function.Consumer
 import kotlin.experimental.and
 import kotlin.experimental.or
-import kotlin.experimental.inv
 
 /**
  * A Minecraft text formatting style.
@@ -22,6 +24,7 @@ final class Formatting {
 		this.code = code
 		this.name = property
 		this.mask = mask
+		this.legacyString = "${SPECIFIER}${code}"
 	}
 
 	/**
@@ -43,6 +46,11 @@ final class Formatting {
 	 */
 	private val mask: Short
 
+	/**
+	 * The formatting style as a legacy Minecraft text string.
+	 */
+	private val legacyString: String
+
 	/**
 	 * Combines the formatting style with another formatting style.
 	 * @param other The other formatting style.
@@ -50,7 +58,7 @@ final class Formatting {
 	 * @since 1.0
 	 */
 	infix fun with(other: Formatting): Combined {
-		return Combined(this, other)
+		return Combined.of(this.mask.toInt() or other.mask.toInt())
 	}
 
 	/**
@@ -60,7 +68,7 @@ final class Formatting {
 	 * @since 1.0
 	 */
 	fun with(vararg other: Formatting): Combined {
-		return Combined(this, *other)
+		return Combined.of(other.fold(this.mask.toInt()) { acc, format -> acc or format.mask.toInt() })
 	}
 
 	/**
@@ -81,7 +89,32 @@ final class Formatting {
 	 */
 	@Export
 	fun toLegacyString(): String {
-		return "${SPECIFIER}${this.code}"
+		return this.legacyString
+	}
+
+	/**
+	 * Appends the formatting style as a legacy Minecraft text string.
+	 *
+	 * @param out The appendable to append to.
+	 * @return The appendable.
+	 * @since 1.0
+	 */
+	@Export
+	@Throws(IOException::class)
+	fun appendLegacyTo(out: Appendable): Appendable {
+		return out.append(SPECIFIER).append(this.code)
+	}
+
+	/**
+	 * Appends the formatting style as a legacy Minecraft text string.
+	 *
+	 * @param out The string builder to append to.
+	 * @return The string builder.
+	 * @since 1.0
+	 */
+	@Export
+	fun appendLegacyTo(out: StringBuilder): StringBuilder {
+		return out.append(SPECIFIER).append(this.code)
 	}
 
 	@Export
@@ -102,12 +135,17 @@ final class Formatting {
 
 	/**
 	 * A combined formatting style consisting of zero or more styles.
+	 *
+	 * There are only 64 possible combinations of styles, and each one has a canonical instance that can be retrieved
+	 * with [Combined.of]. Every method that creates a new combined style returns the canonical instance, and the legacy
+	 * string and list of styles for each combination are computed ahead of time.
+	 *
 	 * @since 1.0
 	 */
 	@Export
 	final class Combined {
 
-		internal var bitfield: Short;
+		internal val bitfield: Short
 
 		private constructor(stylesMask: Short) {
 			this.bitfield = stylesMask
@@ -115,6 +153,7 @@ final class Formatting {
 
 		/**
 		 * Creates a new combined formatting style.
+		 * Prefer [Combined.of] or [Formatting.with], which return a shared instance.
 		 *
 		 * @param styles The formatting style.
 		 * @since 1.0
@@ -126,6 +165,7 @@ final class Formatting {
 
 		/**
 		 * Creates a new combined formatting style.
+		 * Prefer [Combined.of] or [Formatting.with], which return a shared instance.
 		 *
 		 * @param styles The formatting styles.
 		 * @since 1.0
@@ -137,6 +177,35 @@ final class Formatting {
 			})
 		}
 
+		/**
+		 * The index of this style in the canonical tables.
+		 */
+		private val index: Int
+			get() = this.bitfield.toInt()
+
+		/**
+		 * The bitfield of styles in this combined style.
+		 * This can be turned back into a combined style with [Combined.of].
+		 *
+		 * @since 1.0
+		 */
+		val mask: Int
+			@Export get() = this.bitfield.toInt()
+
+		/**
+		 * The number of styles in this combined style.
+		 *
+		 * @since 1.0
+		 */
+		val size: Int
+			@Export get() = Integer.bitCount(this.index)
+
+		/**
+		 * The JSON property names of the styles, in the order Minecraft writes them.
+		 */
+		internal val jsonProperties: Array<String>
+			get() = JSON_PROPERTIES[this.index]
+
 		/**
 		 * Creates a formatting style with another style in it.
 		 *
@@ -146,7 +215,7 @@ final class Formatting {
 		 */
 		@Export
 		infix fun with(style: Formatting): Combined {
-			return Combined(this.bitfield or style.mask)
+			return of(this.index or style.mask.toInt())
 		}
 
 		/**
@@ -158,8 +227,8 @@ final class Formatting {
 		 */
 		@Export
 		fun with(vararg style: Formatting): Combined {
-			return Combined(style.fold(this.bitfield, { acc, format ->
-				acc or format.mask
+			return of(style.fold(this.index, { acc, format ->
+				acc or format.mask.toInt()
 			}))
 		}
 
@@ -172,7 +241,7 @@ final class Formatting {
 		 */
 		@Export
 		infix fun with(style: Combined): Combined {
-			return Combined(this.bitfield or style.bitfield)
+			return of(this.index or style.index)
 		}
 
 		/**
@@ -184,7 +253,7 @@ final class Formatting {
 		 */
 		@Export
 		infix fun without(style: Formatting): Combined {
-			return Combined(this.bitfield and style.mask.inv())
+			return of(this.index and style.mask.toInt().inv())
 		}
 
 		/**
@@ -196,7 +265,7 @@ final class Formatting {
 		 */
 		@Export
 		infix fun without(style: Combined): Combined {
-			return Combined(this.bitfield and style.bitfield.inv())
+			return of(this.index and style.index.inv())
 		}
 
 		/**
@@ -208,8 +277,8 @@ final class Formatting {
 		 */
 		@Export
 		fun without(vararg style: Formatting): Combined {
-			return Combined(style.fold(this.bitfield, { acc, format ->
-				acc and format.mask.inv()
+			return of(style.fold(this.index, { acc, format ->
+				acc and format.mask.toInt().inv()
 			}))
 		}
 
@@ -225,17 +294,41 @@ final class Formatting {
 			return (this.bitfield and style.mask) > 0
 		}
 
+		/**
+		 * Checks if this combined formatting contains no formatting styles.
+		 *
+		 * @return True if there are no styles.
+		 * @since 1.0
+		 */
+		@Export
+		fun isEmpty(): Boolean {
+			return this.bitfield.toInt() == 0
+		}
+
+		/**
+		 * Calls an action for every formatting style in this combined style.
+		 * The styles are visited in the order their legacy codes are written, starting with [RESET].
+		 *
+		 * @param action The action to call.
+		 * @since 1.0
+		 */
+		@Export
+		fun forEach(action: Consumer<in Formatting>) {
+			for (style in ORDERED_STYLES[this.index]) {
+				action.accept(style)
+			}
+		}
+
 		/**
 		 * Gets the formatting styles that this combined style is made from.
+		 * The styles are in the same order as [forEach], and the returned list is shared and cannot be modified.
 		 *
 		 * @return The applicable styles.
 		 * @since 1.0
 		 */
 		@Export
 		fun styles(): List<Formatting> {
-			return values().filter { style ->
-				this has style
-			}
+			return STYLES[this.index]
 		}
 
 		/**
@@ -245,14 +338,32 @@ final class Formatting {
 		 * @since 1.0
 		 */
 		fun toLegacyString(): String {
-			val builder = StringBuilder()
-			if (this has RESET) builder.append("${SPECIFIER}k")
-			if (this has OBFUSCATED) builder.append("${SPECIFIER}k")
-			if (this has BOLD) builder.append("${SPECIFIER}l")
-			if (this has STRIKETHROUGH) builder.append("${SPECIFIER}m")
-			if (this has UNDERLINE) builder.append("${SPECIFIER}n")
-			if (this has ITALIC) builder.append("${SPECIFIER}o")
-			return builder.toString()
+			return LEGACY_STRINGS[this.index]
+		}
+
+		/**
+		 * Appends the formatting styles as a legacy Minecraft text string.
+		 *
+		 * @param out The appendable to append to.
+		 * @return The appendable.
+		 * @since 1.0
+		 */
+		@Export
+		@Throws(IOException::class)
+		fun appendLegacyTo(out: Appendable): Appendable {
+			return out.append(LEGACY_STRINGS[this.index])
+		}
+
+		/**
+		 * Appends the formatting styles as a legacy Minecraft text string.
+		 *
+		 * @param out The string builder to append to.
+		 * @return The string builder.
+		 * @since 1.0
+		 */
+		@Export
+		fun appendLegacyTo(out: StringBuilder): StringBuilder {
+			return out.append(LEGACY_STRINGS[this.index])
 		}
 
 		@Export
@@ -273,6 +384,101 @@ final class Formatting {
 		override fun toString(): String {
 			return styles().toString()
 		}
+
+		companion object {
+
+			// ----------------------------------------
+			// region: Canonical Table
+			// ----------------------------------------
+
+			/**
+			 * The number of possible combinations of styles.
+			 */
+			private const val COMBINATIONS: Int = 64
+
+			/**
+			 * The styles in the order their legacy codes and JSON properties are written.
+			 * Reset is always first, since it would otherwise clear the styles before it.
+			 */
+			private val ORDERED: Array<Formatting> = arrayOf(
+					RESET, OBFUSCATED, BOLD, STRIKETHROUGH, UNDERLINED, ITALIC
+			)
+
+			private val COMBINED: Array<Combined> = Array(COMBINATIONS) { mask -> Combined(mask.toShort()) }
+
+			private val ORDERED_STYLES: Array<Array<Formatting>> = Array(COMBINATIONS) { mask ->
+				ORDERED.filter { style -> (mask and style.mask.toInt()) != 0 }.toTypedArray()
+			}
+
+			private val STYLES: Array<List<Formatting>> = Array(COMBINATIONS) { mask ->
+				Collections.unmodifiableList(ORDERED_STYLES[mask].asList())
+			}
+
+			private val LEGACY_STRINGS: Array<String> = Array(COMBINATIONS) { mask ->
+				ORDERED_STYLES[mask].joinToString("") { style -> style.legacyString }
+			}
+
+			private val JSON_PROPERTIES: Array<Array<String>> = Array(COMBINATIONS) { mask ->
+				Array(ORDERED_STYLES[mask].size) { i -> ORDERED_STYLES[mask][i].name }
+			}
+
+			/**
+			 * Gets the canonical combined formatting style for a bitfield of styles.
+			 *
+			 * @param mask The bitfield of styles, as returned by [Combined.mask].
+			 * @return The shared combined formatting style.
+			 *
+			 * @throws IllegalArgumentException When the bitfield contains unknown styles.
+			 *
+			 * @since 1.0
+			 */
+			@JvmStatic
+			@Export
+			fun of(mask: Int): Combined {
+				if (mask < 0 || mask >= COMBINATIONS) {
+					throw IllegalArgumentException("'${mask}' is not a valid formatting bitfield.")
+				}
+
+				return COMBINED[mask]
+			}
+
+			/**
+			 * Gets the canonical combined formatting style containing one style.
+			 *
+			 * @param style The formatting style.
+			 * @return The shared combined formatting style.
+			 *
+			 * @since 1.0
+			 */
+			@JvmStatic
+			@Export
+			fun of(style: Formatting): Combined {
+				return COMBINED[style.mask.toInt()]
+			}
+
+			/**
+			 * Gets the canonical combined formatting style containing several styles.
+			 *
+			 * @param styles The formatting styles.
+			 * @return The shared combined formatting style.
+			 *
+			 * @since 1.0
+			 */
+			@JvmStatic
+			@Export
+			fun of(vararg styles: Formatting): Combined {
+				var mask = 0
+				for (style in styles) {
+					mask = mask or style.mask.toInt()
+				}
+
+				return COMBINED[mask]
+			}
+
+			//endregion
+			// ----------------------------------------
+
+		}
 	}
 
 	companion object {
@@ -328,11 +534,46 @@ final class Formatting {
 		@JvmStatic
 		@Export
 		fun codeUnsafe(code: Char): Formatting {
-			return codeToFormatting(code).orElseThrow {
-				IllegalArgumentException("'${code}' is not a valid formatting code.")
+			return codeOrNull(code) ?: throw IllegalArgumentException("'${code}' is not a valid formatting code.")
+		}
+
+		/**
+		 * Finds a Formatting from the legacy formatting code.
+		 * This does not allocate.
+		 *
+		 * This does *not* support color codes.
+		 * See [Color] for color codes.
+		 *
+		 * @param code The code character.
+		 * @return The corresponding [Formatting] object, or null if the code is invalid.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun codeOrNull(code: Char): Formatting? {
+			return when (code) {
+				'r' -> RESET
+				in 'k'..'o' -> LEGACY_TABLE[(code - 'k')]
+				else -> null
 			}
 		}
 
+		/**
+		 * Finds the bitfield of a legacy formatting code.
+		 * The bitfields of several codes can be combined and turned into a style with [Combined.of].
+		 *
+		 * @param code The code character.
+		 * @return The bitfield of the corresponding formatting style, or 0 if the code is invalid.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun maskOf(code: Char): Int {
+			return codeOrNull(code)?.mask?.toInt() ?: 0
+		}
+
 		/**
 		 * Finds a Formatting from the legacy formatting name.
 		 *
@@ -344,7 +585,43 @@ final class Formatting {
 		@JvmStatic
 		@Export
 		fun name(name: String): Optional<Formatting> {
-			return Optional.ofNullable(LEGACY_NAMETABLE[name.toUpperCase().replace(' ', '_')])
+			return Optional.ofNullable(LEGACY_NAMETABLE[name])
+		}
+
+		/**
+		 * Finds a Formatting from the legacy formatting name inside a larger sequence of characters.
+		 *
+		 * The name is case insensitive, and spaces are treated the same as underscores.
+		 * This does not allocate.
+		 *
+		 * @param chars The characters.
+		 * @param offset The index of the first character of the name.
+		 * @param length The number of characters in the name.
+		 * @return The corresponding [Formatting] object, or null if the name is invalid.
+		 *
+		 * @throws IndexOutOfBoundsException When the range is outside the characters.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun nameOrNull(chars: CharSequence, offset: Int, length: Int): Formatting? {
+			return LEGACY_NAMETABLE[chars, offset, length]
+		}
+
+		/**
+		 * Finds a Formatting from the legacy formatting name.
+		 *
+		 * @param name The legacy formatting name (case insensitive).
+		 * @return The corresponding [Formatting] object, or null if the name is invalid.
+		 *
+		 * @see nameOrNull
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun nameOrNull(name: CharSequence): Formatting? {
+			return LEGACY_NAMETABLE[name]
 		}
 
 		/**
@@ -461,7 +738,7 @@ final class Formatting {
 				OBFUSCATED, BOLD, STRIKETHROUGH, UNDERLINED, ITALIC, RESET
 		)
 
-		private val LEGACY_NAMETABLE: Map<String, Formatting> = mapOf(
+		private val LEGACY_NAMETABLE: NameTable<Formatting> = NameTable(
 				"RESET" to RESET, "BOLD" to BOLD, "ITALIC" to ITALIC, "STRIKETHROUGH" to STRIKETHROUGH,
 				"UNDERLINED" to UNDERLINED, "UNDERLINE" to UNDERLINE, "OBFUSCATED" to OBFUSCATED, "MAGIC" to MAGIC,
 		)
@@ -483,11 +760,7 @@ final class Formatting {
 
 		@JvmStatic
 		private fun codeToFormatting(code: Char): Optional<Formatting> {
-			return when (code) {
-				'r' -> Optional.of(RESET)
-				in 'k'..'o' -> Optional.of(LEGACY_TABLE[(code - 'k')])
-				else -> Optional.empty()
-			}
+			return Optional.ofNullable(codeOrNull(code))
 		}
 
 		//endregion
@@ -0,0 +1,331 @@
+package dev.ethp.pal.text
+
+import dev.ethp.apistub.Export
+import dev.ethp.pal.client.Client
+import dev.ethp.pal.client.ClientFeature.TEXT_RGB
+import dev.ethp.pal.text.Color.Companion.SPECIFIER
+
+/**
+ * Utilities for working with legacy Minecraft text strings.
+ *
+ * Codes are recognized the same way [dev.ethp.pal.text.component.LegacyParser] recognizes them: color, formatting and
+ * `§x§R§R§G§G§B§B` hex codes are removed, and so is any other `§` followed by a character. When alternate codes are
+ * enabled, `&` codes and `&#RRGGBB` hex codes are removed too, but an `&` that is not followed by a valid code is kept.
+ *
+ * @since 1.0
+ */
+@Export
+object LegacyText {
+
+	/**
+	 * The alternate legacy code specifier character.
+	 */
+	internal const val ALTERNATE_SPECIFIER: Char = '&'
+
+	/**
+	 * The length of a `§x§R§R§G§G§B§B` hex code.
+	 */
+	internal const val HEX_LENGTH = 14
+
+	/**
+	 * The length of a `&#RRGGBB` hex code.
+	 */
+	internal const val ALTERNATE_HEX_LENGTH = 8
+
+	// ----------------------------------------
+	// region: Stripping
+	// ----------------------------------------
+
+	/**
+	 * Removes the codes from a legacy text string.
+	 *
+	 * @param chars The legacy text string.
+	 * @param alternateCodes Whether `&` can be used as the code specifier.
+	 * @param out The buffer to append the visible text to.
+	 * @return The buffer.
+	 *
+	 * @since 1.0
+	 */
+	@JvmStatic
+	@Export
+	fun strip(chars: CharSequence, alternateCodes: Boolean, out: StringBuilder): StringBuilder {
+		out.ensureCapacity(out.length + chars.length)
+		forEachVisible(chars, 0, chars.length, alternateCodes) { start, end ->
+			out.append(chars, start, end)
+		}
+
+		return out
+	}
+
+	/**
+	 * Removes the codes from a legacy text string inside a larger sequence of characters.
+	 *
+	 * @param chars The characters.
+	 * @param start The index of the first character of the legacy text string.
+	 * @param end The index after the last character of the legacy text string.
+	 * @param alternateCodes Whether `&` can be used as the code specifier.
+	 * @param out The array to write the visible text to.
+	 * @param offset The index in the array to start writing at.
+	 * @return The number of characters written.
+	 *
+	 * @throws IndexOutOfBoundsException When the range is outside the characters, or the visible text does not fit
+	 *                                   in the array.
+	 *
+	 * @since 1.0
+	 */
+	@JvmStatic
+	@Export
+	fun strip(chars: CharSequence, start: Int, end: Int, alternateCodes: Boolean, out: CharArray, offset: Int): Int {
+		checkRange(chars, start, end)
+		if (offset < 0 || offset > out.size) {
+			throw IndexOutOfBoundsException("Invalid offset $offset for an array of ${out.size} characters.")
+		}
+
+		var written = offset
+		forEachVisible(chars, start, end, alternateCodes) { from, to ->
+			if (to - from > out.size - written) {
+				throw IndexOutOfBoundsException("Visible text does not fit in an array of ${out.size} characters.")
+			}
+
+			if (chars is String) {
+				chars.toCharArray(out, written, from, to)
+				written += to - from
+			} else {
+				for (i in from until to) out[written++] = chars[i]
+			}
+		}
+
+		return written - offset
+	}
+
+	/**
+	 * Removes the codes from a legacy text string.
+	 *
+	 * @param chars The legacy text string.
+	 * @param alternateCodes Whether `&` can be used as the code specifier.
+	 * @return The visible text.
+	 *
+	 * @since 1.0
+	 */
+	@JvmStatic
+	@JvmOverloads
+	@Export
+	fun strip(chars: CharSequence, alternateCodes: Boolean = false): String {
+		val out = CharArray(chars.length)
+		return String(out, 0, strip(chars, 0, chars.length, alternateCodes, out, 0))
+	}
+
+	/**
+	 * Counts the visible characters of a legacy text string, without removing the codes.
+	 *
+	 * @param chars The legacy text string.
+	 * @param alternateCodes Whether `&` can be used as the code specifier.
+	 * @return The number of characters in the visible text.
+	 *
+	 * @since 1.0
+	 */
+	@JvmStatic
+	@JvmOverloads
+	@Export
+	fun visibleLength(chars: CharSequence, alternateCodes: Boolean = false): Int {
+		var length = 0
+		forEachVisible(chars, 0, chars.length, alternateCodes) { start, end ->
+			length += end - start
+		}
+
+		return length
+	}
+
+	// ----------------------------------------
+	// endregion
+	// region: Translation
+	// ----------------------------------------
+
+	/**
+	 * Translates the alternate `&` codes of a legacy text string into `§` codes.
+	 *
+	 * Only valid codes are translated, so an `&` that is not followed by a color or formatting code is kept as text.
+	 * Hex codes (`&#RRGGBB`, `&x&R&R&G&G&B&B` and `§x§R§R§G§G§B§B`) are written in the `§x§R§R§G§G§B§B` form if the
+	 * client supports [TEXT_RGB], and are replaced with the most similar legacy color code otherwise.
+	 *
+	 * @param chars The legacy text string with alternate codes.
+	 * @param client The client information, or null to assume a legacy client.
+	 * @param out The buffer to append the translated text to.
+	 * @return The buffer.
+	 *
+	 * @since 1.0
+	 */
+	@JvmStatic
+	@Export
+	fun translateAlternateCodes(chars: CharSequence, client: Client?, out: StringBuilder): StringBuilder {
+		val rgb = client != null && client supports TEXT_RGB
+		val end = chars.length
+		out.ensureCapacity(out.length + end)
+
+		var runStart = 0
+		var index = nextSpecifier(chars, 0, end, true)
+		while (index != -1) {
+			val length = codeLength(chars, index, end)
+			when {
+				length == 2 && chars[index] == ALTERNATE_SPECIFIER -> {
+					out.append(chars, runStart, index).append(SPECIFIER).append(chars[index + 1])
+					runStart = index + 2
+				}
+				length == HEX_LENGTH || length == ALTERNATE_HEX_LENGTH -> {
+					out.append(chars, runStart, index)
+					appendHexCode(parseHexCode(chars, index, length), rgb, out)
+					runStart = index + length
+				}
+			}
+
+			index = nextSpecifier(chars, index + maxOf(length, 1), end, true)
+		}
+
+		return out.append(chars, runStart, end)
+	}
+
+	/**
+	 * Translates the alternate `&` codes of a legacy text string into `§` codes.
+	 *
+	 * @param chars The legacy text string with alternate codes.
+	 * @param client The client information, or null to assume a legacy client.
+	 * @return The translated text.
+	 *
+	 * @see translateAlternateCodes
+	 * @since 1.0
+	 */
+	@JvmStatic
+	@JvmOverloads
+	@Export
+	fun translateAlternateCodes(chars: CharSequence, client: Client? = null): String {
+		return translateAlternateCodes(chars, client, StringBuilder(chars.length + 16)).toString()
+	}
+
+	@JvmStatic
+	private fun appendHexCode(rgb: Int, supportsRgb: Boolean, out: StringBuilder) {
+		if (!supportsRgb) {
+			out.append(SPECIFIER).append(Color.quantize(rgb))
+			return
+		}
+
+		out.append(SPECIFIER).append('x')
+		for (shift in 20 downTo 0 step 4) {
+			out.append(SPECIFIER).append(HEX_DIGITS[(rgb shr shift) and 0xF])
+		}
+	}
+
+	private val HEX_DIGITS: CharArray = "0123456789abcdef".toCharArray()
+
+	// ----------------------------------------
+	// endregion
+	// region: Scanning
+	// ----------------------------------------
+
+	/**
+	 * Calls an action for every run of visible text between codes.
+	 */
+	private inline fun forEachVisible(chars: CharSequence, start: Int, end: Int, alternateCodes: Boolean, action: (Int, Int) -> Unit) {
+		var runStart = start
+		var index = nextSpecifier(chars, start, end, alternateCodes)
+		while (index != -1) {
+			val length = codeLength(chars, index, end)
+
+			// An invalid alternate code is plain text.
+			if (length == 0 && chars[index] != SPECIFIER) {
+				index = nextSpecifier(chars, index + 1, end, alternateCodes)
+				continue
+			}
+
+			if (runStart < index) action(runStart, index)
+			runStart = minOf(index + maxOf(length, 2), end)
+			index = nextSpecifier(chars, runStart, end, alternateCodes)
+		}
+
+		if (runStart < end) action(runStart, end)
+	}
+
+	/**
+	 * Finds the next code specifier.
+	 *
+	 * @return The index of the specifier, or -1 if there are no more.
+	 */
+	@JvmStatic
+	internal fun nextSpecifier(chars: CharSequence, from: Int, end: Int, alternateCodes: Boolean): Int {
+		if (chars is String && !alternateCodes) {
+			val index = chars.indexOf(SPECIFIER, from)
+			return if (index == -1 || index >= end) -1 else index
+		}
+
+		for (i in from until end) {
+			val c = chars[i]
+			if (c == SPECIFIER || (c == ALTERNATE_SPECIFIER && alternateCodes)) return i
+		}
+
+		return -1
+	}
+
+	/**
+	 * Gets the length of the code starting at a specifier.
+	 *
+	 * @return The number of characters in the code, or zero if it is not a valid code.
+	 */
+	@JvmStatic
+	internal fun codeLength(chars: CharSequence, index: Int, end: Int): Int {
+		if (index + 1 >= end) return 0
+
+		val specifier = chars[index]
+		val code = lowercase(chars[index + 1])
+		if (code == 'x' && index + HEX_LENGTH <= end && isHexCode(chars, index, specifier)) return HEX_LENGTH
+		if (code == '#' && specifier == ALTERNATE_SPECIFIER && index + ALTERNATE_HEX_LENGTH <= end &&
+				Color.parseRgb(chars, index, ALTERNATE_HEX_LENGTH) != -1) return ALTERNATE_HEX_LENGTH
+
+		return if (Color.indexOf(code) != -1 || Formatting.maskOf(code) != 0) 2 else 0
+	}
+
+	/**
+	 * Parses the color of a hex code found by [codeLength].
+	 *
+	 * @return The RGB color in 00RRGGBB format.
+	 */
+	@JvmStatic
+	internal fun parseHexCode(chars: CharSequence, index: Int, length: Int): Int {
+		if (length == ALTERNATE_HEX_LENGTH) return Color.parseRgb(chars, index, length)
+
+		var rgb = 0
+		for (i in 3 until HEX_LENGTH step 2) {
+			rgb = (rgb shl 4) or Color.hexDigit(chars[index + i])
+		}
+
+		return rgb
+	}
+
+	/**
+	 * Converts an ASCII letter to lowercase.
+	 */
+	@JvmStatic
+	internal fun lowercase(c: Char): Char {
+		return if (c in 'A'..'Z') c + ('a' - 'A') else c
+	}
+
+	@JvmStatic
+	private fun isHexCode(chars: CharSequence, index: Int, specifier: Char): Boolean {
+		for (i in 0 until HEX_LENGTH step 2) {
+			if (chars[index + i] != specifier) return false
+			if (i >= 2 && Color.hexDigit(chars[index + i + 1]) == -1) return false
+		}
+
+		return true
+	}
+
+	@JvmStatic
+	private fun checkRange(chars: CharSequence, start: Int, end: Int) {
+		if (start < 0 || end > chars.length || start > end) {
+			throw IndexOutOfBoundsException("Invalid range of characters from $start to $end.")
+		}
+	}
+
+	// ----------------------------------------
+	// endregion
+	// ----------------------------------------
+
+}
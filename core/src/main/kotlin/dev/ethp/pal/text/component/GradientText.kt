@@ -0,0 +1,246 @@
+package dev.ethp.pal.text.component
+
+import dev.ethp.apistub.Export
+import dev.ethp.pal.client.Client
+import dev.ethp.pal.client.ClientFeature.TEXT_RGB
+import dev.ethp.pal.math.Gradient
+import dev.ethp.pal.math.Palette
+import dev.ethp.pal.text.Color
+import dev.ethp.pal.text.Formatting
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * A factory for text colored with a gradient.
+ *
+ * Every code point of the text is given its own color from the gradient. Adjacent code points with the same color are
+ * merged into one [TextNode], which means clients without RGB text support only get one node for every run of
+ * characters that quantize to the same legacy color.
+ *
+ * The colors for each text length are computed once and remembered, so the same instance should be reused to render
+ * text of the same length many times. The remembered legacy colors are quantized again if [Color.metric] or
+ * [Color.useQuantizationTable] is changed.
+ *
+ * @since 1.0
+ */
+@Export
+class GradientText {
+
+	// -------------------------------------------------------------------------------------------------------------
+	// Constructors:
+	// -------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a new gradient text factory.
+	 *
+	 * @param gradient The gradient.
+	 * @param style The formatting style.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	constructor(gradient: Gradient, style: Formatting.Combined?) {
+		this.gradient = gradient
+		this.style = style
+	}
+
+	/**
+	 * Creates a new gradient text factory.
+	 *
+	 * @param gradient The gradient.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	constructor(gradient: Gradient) : this(gradient, null)
+
+	/**
+	 * Creates a new gradient text factory, blending between evenly spaced colors.
+	 *
+	 * @param colors The colors.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	constructor(vararg colors: Color) : this(Gradient(IntArray(colors.size) { i -> colors[i].rgb }))
+
+
+	// -------------------------------------------------------------------------------------------------------------
+	// Fields:
+	// -------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The gradient.
+	 * @since 1.0
+	 */
+	@Export
+	val gradient: Gradient
+
+	/**
+	 * The formatting style applied to every node.
+	 * @since 1.0
+	 */
+	@Export
+	val style: Formatting.Combined?
+
+	/**
+	 * The remembered color runs, indexed by text length.
+	 */
+	private val runs: AtomicReferenceArray<Run> = AtomicReferenceArray(RUN_CACHE_SIZE)
+
+
+	// -------------------------------------------------------------------------------------------------------------
+	// Methods:
+	// -------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Gets the colors given to text with a number of code points.
+	 *
+	 * @param length The number of code points.
+	 * @return The RGB colors in 00RRGGBB format.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun colors(length: Int): IntArray {
+		return run(length).rgb.copyOf()
+	}
+
+	/**
+	 * Splits text into nodes colored with the gradient.
+	 *
+	 * @param text The text.
+	 * @param client The client information.
+	 * @return The text nodes.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun toNodes(text: String, client: Client?): List<TextNode> {
+		val length = text.codePointCount(0, text.length)
+		if (length == 0) return emptyList()
+
+		val run = run(length)
+		val rgb = client != null && client supports TEXT_RGB
+		val nodes = ArrayList<TextNode>()
+
+		// Merge adjacent code points that have the same color.
+		var start = 0
+		var startPoint = 0
+		var index = 0
+		for (point in 0 until length) {
+			if (point > 0 && run.key(point, rgb) != run.key(startPoint, rgb)) {
+				nodes.add(TextNode(text.substring(start, index), run.color(startPoint, rgb), style))
+				start = index
+				startPoint = point
+			}
+
+			index += Character.charCount(text.codePointAt(index))
+		}
+
+		nodes.add(TextNode(text.substring(start), run.color(startPoint, rgb), style))
+		return nodes
+	}
+
+	/**
+	 * Splits text into nodes colored with the gradient.
+	 * This assumes a legacy client.
+	 *
+	 * @param text The text.
+	 * @return The text nodes.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun toNodes(text: String): List<TextNode> {
+		return toNodes(text, null)
+	}
+
+	/**
+	 * Colors text with the gradient as a legacy Minecraft text string.
+	 *
+	 * @param text The text.
+	 * @return The legacy text string with Minecraft formatting codes.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun toLegacyString(text: String): String {
+		val builder = StringBuilder(text.length * 3)
+		for (node in toNodes(text, null)) {
+			node.appendLegacyTo(builder)
+		}
+
+		return builder.toString()
+	}
+
+	@Export
+	override fun toString(): String {
+		return "GradientText($gradient)"
+	}
+
+	private fun run(length: Int): Run {
+		val slot = length and (RUN_CACHE_SIZE - 1)
+		val palette = Color.palette
+		val useTable = Color.useQuantizationTable
+		val cached = runs.get(slot)
+		if (cached != null && cached.rgb.size == length && cached.palette === palette && cached.useTable == useTable) {
+			return cached
+		}
+
+		val rgb = gradient.sample(length)
+		val codes = CharArray(length)
+		Color.quantize(rgb, 0, codes, 0, length, palette.metric)
+
+		val run = Run(rgb, codes, palette, useTable)
+		runs.lazySet(slot, run)
+		return run
+	}
+
+
+	// -------------------------------------------------------------------------------------------------------------
+	// Helpers:
+	// -------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The colors for text with a specific number of code points.
+	 * The legacy codes are only valid for the palette and quantization table setting they were quantized with.
+	 */
+	private class Run(val rgb: IntArray, val codes: CharArray, val palette: Palette, val useTable: Boolean) {
+
+		fun key(point: Int, rgb: Boolean): Int {
+			return if (rgb) this.rgb[point] else this.codes[point].toInt()
+		}
+
+		fun color(point: Int, rgb: Boolean): Color {
+			return if (rgb) Color.rgb(this.rgb[point]) else Color.codeUnsafe(this.codes[point])
+		}
+
+	}
+
+	companion object {
+
+		/**
+		 * The number of color runs remembered by each instance.
+		 */
+		private const val RUN_CACHE_SIZE = 64
+
+		private val RAINBOW: GradientText = GradientText(
+				Gradient(intArrayOf(0xFF0000, 0xFFFF00, 0x00FF00, 0x00FFFF, 0x0000FF, 0xFF00FF), Gradient.Space.RGB)
+		)
+
+		/**
+		 * Gets a gradient text factory that cycles through the hues of the rainbow, from red to purple.
+		 *
+		 * @return The rainbow gradient text factory.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun rainbow(): GradientText {
+			return RAINBOW
+		}
+
+	}
+
+}
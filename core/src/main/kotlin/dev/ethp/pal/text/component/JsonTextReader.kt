@@ -0,0 +1,293 @@
+package dev.ethp.pal.text.component
+
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import dev.ethp.pal.text.Color
+import dev.ethp.pal.text.Formatting
+import java.io.IOException
+import java.util.Collections
+
+/**
+ * A streaming reader for Minecraft text JSON.
+ *
+ * Components are read straight into a flat list of text runs, without creating a JSON tree. Because the properties of
+ * an object can appear in any order (and Minecraft writes `extra` before `text`), every run only records the properties
+ * that its own component sets. The properties of a component are applied to the runs of its children once the
+ * component has been read, skipping any property that a child sets itself.
+ *
+ * The flags of a run pack the styles it sets, the styles it clears, and whether it sets the color.
+ */
+internal class JsonTextReader(private val reader: JsonReader, private val maxDepth: Int, private val maxLength: Int) {
+
+	init {
+		if (maxDepth <= 0) {
+			throw IllegalArgumentException("Invalid maximum depth: $maxDepth")
+		}
+
+		if (maxLength <= 0) {
+			throw IllegalArgumentException("Invalid maximum length: $maxLength")
+		}
+	}
+
+	private val texts: ArrayList<String> = ArrayList()
+	private val colors: ArrayList<Color?> = ArrayList()
+	private var flags: IntArray = IntArray(16)
+
+	private var depth: Int = 0
+	private var length: Int = 0
+
+	/**
+	 * The color of the last component read by [readComponent].
+	 */
+	private var lastColor: Color? = null
+
+	/**
+	 * Reads a text component.
+	 *
+	 * @return The text nodes. This list cannot be modified.
+	 */
+	@Throws(IOException::class)
+	fun read(): List<TextNode> {
+		readComponent()
+
+		val nodes = ArrayList<TextNode>(texts.size)
+		for (i in texts.indices) {
+			val text = texts[i]
+			if (text.isEmpty()) continue
+
+			val mask = flags[i] and STYLE_MASK
+			nodes.add(TextNode(text, colors[i], if (mask == 0) null else Formatting.Combined.of(mask)))
+		}
+
+		return if (nodes.isEmpty()) emptyList() else Collections.unmodifiableList(nodes)
+	}
+
+	/**
+	 * Reads a component, and adds its runs.
+	 *
+	 * @return The flags of the properties set by the component itself.
+	 */
+	@Throws(IOException::class)
+	private fun readComponent(): Int {
+		lastColor = null
+		return when (reader.peek()) {
+			JsonToken.STRING, JsonToken.NUMBER -> {
+				addRun(reader.nextString())
+				0
+			}
+			JsonToken.BOOLEAN -> {
+				addRun(reader.nextBoolean().toString())
+				0
+			}
+			JsonToken.BEGIN_ARRAY -> {
+				readArray()
+				0
+			}
+			JsonToken.BEGIN_OBJECT -> readObject()
+			else -> throw invalid("Expected a text component")
+		}
+	}
+
+	/**
+	 * Reads an array of components.
+	 * The components after the first are children of the first.
+	 */
+	@Throws(IOException::class)
+	private fun readArray() {
+		enter()
+		reader.beginArray()
+		if (!reader.hasNext()) throw invalid("Expected a text component")
+
+		val first = readComponent()
+		val firstColor = lastColor
+		val start = texts.size
+		while (reader.hasNext()) {
+			readComponent()
+		}
+
+		reader.endArray()
+		inherit(start, texts.size, first, firstColor)
+		depth--
+		lastColor = null
+	}
+
+	/**
+	 * Reads a component object.
+	 *
+	 * @return The flags of the properties set by the component.
+	 */
+	@Throws(IOException::class)
+	private fun readObject(): Int {
+		enter()
+		reader.beginObject()
+
+		// The run of the component itself comes before the runs of its children.
+		val index = addRun("")
+		var hasText = false
+		var own = 0
+		var color: Color? = null
+
+		while (reader.hasNext()) {
+			val name = reader.nextName()
+			when (name) {
+				"text" -> {
+					texts[index] = readString(name)
+					hasText = true
+				}
+				"color" -> {
+					color = readColor()
+					own = own or COLOR_SET
+				}
+				"extra" -> {
+					if (reader.peek() != JsonToken.BEGIN_ARRAY) throw invalid("Expected an array for 'extra'")
+					reader.beginArray()
+					while (reader.hasNext()) {
+						readComponent()
+					}
+
+					reader.endArray()
+				}
+				else -> {
+					val style = Formatting.nameOrNull(name)
+					if (style == null || style.name != name) {
+						skipValue()
+						continue
+					}
+
+					if (reader.peek() != JsonToken.BOOLEAN) throw invalid("Expected a boolean for '$name'")
+					val bit = (Formatting.Combined.of(0) with style).mask
+					own = if (reader.nextBoolean()) {
+						(own or bit) and (bit shl CLEARED_SHIFT).inv()
+					} else {
+						(own or (bit shl CLEARED_SHIFT)) and bit.inv()
+					}
+				}
+			}
+		}
+
+		reader.endObject()
+		if (!hasText) throw invalid("Expected a 'text' property")
+
+		// Apply the properties to the component and its children.
+		length += texts[index].length
+		if (length > maxLength) throw invalid("Text is longer than $maxLength characters")
+		inherit(index, texts.size, own, color)
+
+		depth--
+		lastColor = color
+		return own
+	}
+
+	@Throws(IOException::class)
+	private fun readString(name: String): String {
+		return when (reader.peek()) {
+			JsonToken.STRING, JsonToken.NUMBER -> reader.nextString()
+			JsonToken.BOOLEAN -> reader.nextBoolean().toString()
+			else -> throw invalid("Expected a string for '$name'")
+		}
+	}
+
+	@Throws(IOException::class)
+	private fun readColor(): Color? {
+		if (reader.peek() != JsonToken.STRING) throw invalid("Expected a string for 'color'")
+
+		val name = reader.nextString()
+		if (name == "reset") return null
+		if (name.startsWith('#')) {
+			val rgb = Color.parseRgb(name)
+			if (rgb != -1) return Color.rgb(rgb)
+		}
+
+		return Color.nameOrNull(name) ?: throw invalid("'$name' is not a valid color")
+	}
+
+	/**
+	 * Skips an unsupported property.
+	 * Unlike [JsonReader.skipValue], this counts towards the limits, so large or deeply nested values are rejected.
+	 */
+	@Throws(IOException::class)
+	private fun skipValue() {
+		var nested = 0
+		do {
+			when (reader.peek()) {
+				JsonToken.BEGIN_ARRAY -> {
+					enter()
+					nested++
+					reader.beginArray()
+				}
+				JsonToken.BEGIN_OBJECT -> {
+					enter()
+					nested++
+					reader.beginObject()
+				}
+				JsonToken.END_ARRAY -> {
+					depth--
+					nested--
+					reader.endArray()
+				}
+				JsonToken.END_OBJECT -> {
+					depth--
+					nested--
+					reader.endObject()
+				}
+				JsonToken.NAME -> skipped(reader.nextName().length)
+				JsonToken.STRING, JsonToken.NUMBER -> skipped(reader.nextString().length)
+				JsonToken.BOOLEAN -> reader.nextBoolean()
+				JsonToken.NULL -> reader.nextNull()
+				else -> throw invalid("Unexpected end of the text component")
+			}
+		} while (nested > 0)
+	}
+
+	private fun skipped(length: Int) {
+		this.length += length
+		if (this.length > maxLength) throw invalid("Text is longer than $maxLength characters")
+	}
+
+	/**
+	 * Applies the properties of a component to the runs that do not set them.
+	 */
+	private fun inherit(start: Int, end: Int, own: Int, color: Color?) {
+		if (own == 0) return
+
+		val styles = own and (STYLE_MASK or (STYLE_MASK shl CLEARED_SHIFT))
+		for (i in start until end) {
+			val run = flags[i]
+			if ((own and COLOR_SET) != 0 && (run and COLOR_SET) == 0) {
+				colors[i] = color
+			}
+
+			// A style is set by the run if it is either set or cleared.
+			val explicit = (run or (run shr CLEARED_SHIFT)) and STYLE_MASK
+			val unset = (explicit or (explicit shl CLEARED_SHIFT)).inv()
+			flags[i] = run or (own and COLOR_SET) or (styles and unset)
+		}
+	}
+
+	private fun addRun(text: String): Int {
+		length += text.length + 1
+		if (length > maxLength) throw invalid("Text is longer than $maxLength characters")
+
+		val index = texts.size
+		if (index == flags.size) flags = flags.copyOf(index * 2)
+		flags[index] = 0
+		texts.add(text)
+		colors.add(null)
+		return index
+	}
+
+	private fun enter() {
+		if (++depth > maxDepth) throw invalid("Components are nested deeper than $maxDepth levels")
+	}
+
+	private fun invalid(message: String): IllegalArgumentException {
+		return IllegalArgumentException("$message at ${reader.path}.")
+	}
+
+	companion object {
+		private const val STYLE_MASK: Int = 0b111111
+		private const val CLEARED_SHIFT: Int = 6
+		private const val COLOR_SET: Int = 1 shl 12
+	}
+
+}
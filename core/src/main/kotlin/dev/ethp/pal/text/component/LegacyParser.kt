@@ -0,0 +1,350 @@
+package dev.ethp.pal.text.component
+
+import com.google.gson.stream.JsonWriter
+import dev.ethp.apistub.Export
+import dev.ethp.pal.client.Client
+import dev.ethp.pal.client.ClientFeature.TEXT_RGB
+import dev.ethp.pal.text.Color
+import dev.ethp.pal.text.Formatting
+import dev.ethp.pal.text.LegacyText.ALTERNATE_HEX_LENGTH
+import dev.ethp.pal.text.LegacyText.ALTERNATE_SPECIFIER
+import dev.ethp.pal.text.LegacyText.HEX_LENGTH
+import dev.ethp.pal.text.LegacyText.codeLength
+import dev.ethp.pal.text.LegacyText.lowercase
+import dev.ethp.pal.text.LegacyText.nextSpecifier
+import dev.ethp.pal.text.LegacyText.parseHexCode
+import dev.ethp.pal.util.JsonSink
+import dev.ethp.pal.util.LruCache
+import java.io.IOException
+import java.util.Collections
+import java.util.function.Function
+import java.util.function.ToIntBiFunction
+
+/**
+ * A parser for legacy Minecraft text strings.
+ *
+ * The text is scanned once, jumping between formatting code specifiers. Every run of text between codes is reported
+ * to a [Handler] as a range of the original characters, together with the color and style that apply to it. Nothing
+ * is copied unless the handler copies it.
+ *
+ * Codes are applied the same way the Minecraft client applies them:
+ *
+ *  - A color code (including `§x§R§R§G§G§B§B` hex codes) sets the color and clears the styles.
+ *  - A style code adds the style.
+ *  - `§r` clears the color and the styles, and is kept as [Formatting.RESET] on the following text.
+ *  - Invalid codes are removed.
+ *
+ * When alternate codes are enabled, `&` works the same as `§`, and `&#RRGGBB` is a hex color code. An `&` that is not
+ * followed by a valid code is kept as text.
+ *
+ * Parsers can remember the nodes of recently parsed strings, so that messages which are sent repeatedly are only
+ * parsed once. The shared parsers from [LegacyParser.of] remember up to [DEFAULT_CACHE_SIZE] strings.
+ *
+ * @param alternateCodes Whether `&` can be used as the code specifier.
+ * @param cacheSize The number of parsed strings to remember, or zero to disable the cache.
+ *
+ * @since 1.0
+ */
+@Export
+class LegacyParser @JvmOverloads constructor(@Export val alternateCodes: Boolean = false, cacheSize: Int = 0) {
+
+	/**
+	 * The nodes of recently parsed strings, or null if they are not remembered.
+	 * The weight of each entry is the length of the string.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	val cache: LruCache<String, List<TextNode>>? = when {
+		cacheSize < 0 -> throw IllegalArgumentException("Invalid cache size: $cacheSize")
+		cacheSize == 0 -> null
+		else -> LruCache(cacheSize, cacheSize.toLong() * CACHE_WEIGHT_PER_ENTRY, ToIntBiFunction { key, _ -> key.length })
+	}
+
+	/**
+	 * Receives the runs of text found by a [LegacyParser].
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun interface Handler {
+
+		/**
+		 * Receives a run of text.
+		 *
+		 * @param chars The characters being parsed.
+		 * @param start The index of the first character of the run.
+		 * @param end The index after the last character of the run.
+		 * @param color The color of the run.
+		 * @param style The formatting style of the run, or null if it has no styles.
+		 *
+		 * @since 1.0
+		 */
+		@Export
+		fun text(chars: CharSequence, start: Int, end: Int, color: Color?, style: Formatting.Combined?)
+
+	}
+
+	/**
+	 * Parses a legacy text string.
+	 *
+	 * @param chars The legacy text string.
+	 * @param handler The handler that receives every run of text.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun parse(chars: CharSequence, handler: Handler) {
+		parse(chars, 0, chars.length, handler)
+	}
+
+	/**
+	 * Parses a legacy text string inside a larger sequence of characters.
+	 *
+	 * @param chars The characters.
+	 * @param start The index of the first character of the legacy text string.
+	 * @param end The index after the last character of the legacy text string.
+	 * @param handler The handler that receives every run of text.
+	 *
+	 * @throws IndexOutOfBoundsException When the range is outside the characters.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun parse(chars: CharSequence, start: Int, end: Int, handler: Handler) {
+		if (start < 0 || end > chars.length || start > end) {
+			throw IndexOutOfBoundsException("Invalid range of characters from $start to $end.")
+		}
+
+		var color: Color? = null
+		var mask = 0
+		var runStart = start
+		var index = nextSpecifier(chars, start, end, alternateCodes)
+		while (index != -1) {
+			val specifier = chars[index]
+			val length = codeLength(chars, index, end)
+
+			// An invalid alternate code is plain text.
+			if (length == 0 && specifier == ALTERNATE_SPECIFIER) {
+				index = nextSpecifier(chars, index + 1, end, alternateCodes)
+				continue
+			}
+
+			if (runStart < index) {
+				handler.text(chars, runStart, index, color, if (mask == 0) null else Formatting.Combined.of(mask))
+			}
+
+			// Apply the code.
+			when (length) {
+				2 -> {
+					val code = lowercase(chars[index + 1])
+					val legacyColor = Color.codeOrNull(code)
+					if (legacyColor != null) {
+						color = legacyColor
+						mask = 0
+					} else if (code == 'r') {
+						color = null
+						mask = RESET_MASK
+					} else {
+						mask = mask or Formatting.maskOf(code)
+					}
+				}
+				HEX_LENGTH, ALTERNATE_HEX_LENGTH -> {
+					color = Color.rgb(parseHexCode(chars, index, length))
+					mask = 0
+				}
+			}
+
+			// Skip the code, or the lone specifier at the end of the text.
+			runStart = minOf(index + maxOf(length, 2), end)
+			index = nextSpecifier(chars, runStart, end, alternateCodes)
+		}
+
+		if (runStart < end) {
+			handler.text(chars, runStart, end, color, if (mask == 0) null else Formatting.Combined.of(mask))
+		}
+	}
+
+	/**
+	 * Parses a legacy text string into text nodes.
+	 * If the parser has a [cache], strings are only parsed the first time they are seen.
+	 *
+	 * @param chars The legacy text string.
+	 * @return The text nodes. This list cannot be modified.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun toNodes(chars: CharSequence): List<TextNode> {
+		val cache = this.cache
+		if (cache == null || chars !is String) return parseNodes(chars)
+		return cache.computeIfAbsent(chars, Function { parseNodes(it) })
+	}
+
+	private fun parseNodes(chars: CharSequence): List<TextNode> {
+		val nodes = ArrayList<TextNode>()
+		parse(chars) { text, start, end, color, style ->
+			nodes.add(TextNode(text.subSequence(start, end).toString(), color, style))
+		}
+
+		return if (nodes.isEmpty()) emptyList() else Collections.unmodifiableList(nodes)
+	}
+
+	/**
+	 * Converts a legacy text string into Minecraft text JSON, without creating any nodes.
+	 *
+	 * Every run of text is written the same way as [TextNode.toJson]. A single run is written on its own, and multiple
+	 * runs are written as the `extra` components of an empty text component, so that their styles are not inherited.
+	 * Empty text is written as an empty string.
+	 *
+	 * @param chars The legacy text string.
+	 * @param client The client information, or null to assume a legacy client.
+	 * @param out The JSON writer.
+	 *
+	 * @throws IOException When the JSON could not be written.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	@Throws(IOException::class)
+	fun writeJson(chars: CharSequence, client: Client?, out: JsonWriter) {
+		writeJson(chars, client, JsonSink.Gson(out))
+	}
+
+	/**
+	 * Converts a legacy text string into serialized Minecraft text JSON, without creating any nodes.
+	 *
+	 * @param chars The legacy text string.
+	 * @param client The client information, or null to assume a legacy client.
+	 * @param out The appendable to append the JSON to.
+	 * @return The appendable.
+	 *
+	 * @throws IOException When the appendable could not be appended to.
+	 *
+	 * @see writeJson
+	 * @since 1.0
+	 */
+	@Export
+	@Throws(IOException::class)
+	fun appendJson(chars: CharSequence, client: Client?, out: Appendable): Appendable {
+		writeJson(chars, client, JsonSink.Appender(out))
+		return out
+	}
+
+	/**
+	 * Converts a legacy text string into serialized Minecraft text JSON, without creating any nodes.
+	 *
+	 * @param chars The legacy text string.
+	 * @param client The client information, or null to assume a legacy client.
+	 * @return The serialized JSON.
+	 *
+	 * @see writeJson
+	 * @since 1.0
+	 */
+	@Export
+	@JvmOverloads
+	fun toJsonString(chars: CharSequence, client: Client? = null): String {
+		val out = StringBuilder(chars.length + 32)
+		writeJson(chars, client, JsonSink.Appender(out))
+		return out.toString()
+	}
+
+	private fun writeJson(chars: CharSequence, client: Client?, out: JsonSink) {
+		val transcoder = JsonTranscoder(out, client != null && client supports TEXT_RGB)
+		parse(chars, transcoder)
+		transcoder.finish()
+	}
+
+	/**
+	 * Writes runs of text as they are parsed.
+	 * The first run is held back until it is known whether there are more runs that need a parent component.
+	 */
+	private class JsonTranscoder(private val out: JsonSink, private val rgb: Boolean) : Handler {
+
+		private var runs: Int = 0
+		private var firstChars: CharSequence = ""
+		private var firstStart: Int = 0
+		private var firstEnd: Int = 0
+		private var firstColor: Color? = null
+		private var firstStyle: Formatting.Combined? = null
+
+		override fun text(chars: CharSequence, start: Int, end: Int, color: Color?, style: Formatting.Combined?) {
+			when (runs++) {
+				0 -> {
+					firstChars = chars
+					firstStart = start
+					firstEnd = end
+					firstColor = color
+					firstStyle = style
+					return
+				}
+				1 -> {
+					out.beginObject()
+					out.name("text")
+					out.value("")
+					out.name("extra")
+					out.beginArray()
+					Node.writeText(out, firstChars, firstStart, firstEnd, firstColor, firstStyle, rgb)
+				}
+			}
+
+			Node.writeText(out, chars, start, end, color, style, rgb)
+		}
+
+		fun finish() {
+			when (runs) {
+				0 -> out.value("")
+				1 -> Node.writeText(out, firstChars, firstStart, firstEnd, firstColor, firstStyle, rgb)
+				else -> {
+					out.endArray()
+					out.endObject()
+				}
+			}
+		}
+
+	}
+
+	@Export
+	override fun toString(): String {
+		return "LegacyParser(alternateCodes=$alternateCodes)"
+	}
+
+	companion object {
+
+		private val RESET_MASK: Int = Formatting.maskOf('r')
+
+		/**
+		 * The number of parsed strings remembered by the shared parsers.
+		 *
+		 * @since 1.0
+		 */
+		@Export
+		const val DEFAULT_CACHE_SIZE: Int = 1024
+
+		/**
+		 * The average length of the strings a cache is sized for.
+		 * Longer strings are still cached, but the cache holds fewer of them.
+		 */
+		private const val CACHE_WEIGHT_PER_ENTRY: Long = 256
+
+		private val DEFAULT: LegacyParser = LegacyParser(false, DEFAULT_CACHE_SIZE)
+		private val ALTERNATE: LegacyParser = LegacyParser(true, DEFAULT_CACHE_SIZE)
+
+		/**
+		 * Gets a shared parser for legacy text strings.
+		 * The shared parsers remember the nodes of up to [DEFAULT_CACHE_SIZE] strings.
+		 *
+		 * @param alternateCodes Whether `&` can be used as the code specifier.
+		 * @return The shared parser.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun of(alternateCodes: Boolean): LegacyParser {
+			return if (alternateCodes) ALTERNATE else DEFAULT
+		}
+
+	}
+
+}
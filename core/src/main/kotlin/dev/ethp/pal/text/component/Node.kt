@@ -4,18 +4,17 @@ import com.google.gson.JsonElement
 import com.google.gson.JsonNull
 import com.google.gson.JsonObject
 import com.google.gson.JsonPrimitive
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
 import dev.ethp.apistub.Export
-import dev.ethp.pal._internal.gson
 import dev.ethp.pal.client.Client
 import dev.ethp.pal.client.ClientFeature.TEXT_RGB
 import dev.ethp.pal.text.Color
 import dev.ethp.pal.text.Formatting
-import dev.ethp.pal.text.Formatting.Companion.BOLD
-import dev.ethp.pal.text.Formatting.Companion.ITALIC
-import dev.ethp.pal.text.Formatting.Companion.OBFUSCATED
-import dev.ethp.pal.text.Formatting.Companion.RESET
-import dev.ethp.pal.text.Formatting.Companion.STRIKETHROUGH
-import dev.ethp.pal.text.Formatting.Companion.UNDERLINED
+import dev.ethp.pal.util.JsonSink
+import java.io.IOException
+import java.io.StringReader
 
 /**
  * Abstract base class for all Minecraft text.
@@ -79,21 +78,46 @@ abstract class Node {
 	 */
 	@Export
 	open fun toLegacyString(): String {
-		val builder = StringBuilder()
+		return appendLegacyTo(StringBuilder()).toString()
+	}
+
+	/**
+	 * Appends the text as a legacy Minecraft text string.
+	 *
+	 * @param out The appendable to append to.
+	 * @return The appendable.
+	 * @since 1.0
+	 */
+	@Export
+	@Throws(IOException::class)
+	open fun appendLegacyTo(out: Appendable): Appendable {
 		val color = this.color
 		val styles = this.style
 
 		// Append color code.
 		if (color != null) {
-			builder.append(color.toLegacyString())
+			color.appendLegacyTo(out)
 		}
 
 		// Append style codes.
 		if (styles != null) {
-			builder.append(styles.toLegacyString())
+			styles.appendLegacyTo(out)
 		}
 
-		return builder.toString()
+		return out
+	}
+
+	/**
+	 * Appends the text as a legacy Minecraft text string.
+	 *
+	 * @param out The string builder to append to.
+	 * @return The string builder.
+	 * @since 1.0
+	 */
+	@Export
+	fun appendLegacyTo(out: StringBuilder): StringBuilder {
+		appendLegacyTo(out as Appendable)
+		return out
 	}
 
 	/**
@@ -122,12 +146,9 @@ abstract class Node {
 
 		// Set formatting properties.
 		if (styles != null) {
-			if (styles has RESET) obj.add("reset", JsonPrimitive(true))
-			if (styles has OBFUSCATED) obj.add("obfuscated", JsonPrimitive(true))
-			if (styles has BOLD) obj.add("bold", JsonPrimitive(true))
-			if (styles has STRIKETHROUGH) obj.add("strikethrough", JsonPrimitive(true))
-			if (styles has UNDERLINED) obj.add("underlined", JsonPrimitive(true))
-			if (styles has ITALIC) obj.add("italic", JsonPrimitive(true))
+			for (property in styles.jsonProperties) {
+				obj.add(property, JsonPrimitive(true))
+			}
 		}
 
 		// Return.
@@ -157,7 +178,7 @@ abstract class Node {
 	 */
 	@Export
 	fun toJsonString(client: Client?): String {
-		return gson.toJson(toJson(client))
+		return appendJsonTo(StringBuilder(), client).toString()
 	}
 
 	/**
@@ -170,7 +191,69 @@ abstract class Node {
 	 */
 	@Export
 	fun toJsonString(): String {
-		return gson.toJson(toJson())
+		return toJsonString(null)
+	}
+
+	/**
+	 * Writes the text as Minecraft text JSON.
+	 * This produces the same JSON as [toJson], without creating a JSON tree.
+	 *
+	 * @param out The JSON writer.
+	 * @param client The client information.
+	 *
+	 * @throws IOException When the JSON could not be written.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	@Throws(IOException::class)
+	fun writeJson(out: JsonWriter, client: Client?) {
+		writeJson(JsonSink.Gson(out), client)
+	}
+
+	/**
+	 * Appends the text as serialized Minecraft text JSON.
+	 * This produces the same JSON as [toJsonString], without creating a JSON tree.
+	 *
+	 * @param out The appendable to append to.
+	 * @param client The client information.
+	 * @return The appendable.
+	 *
+	 * @throws IOException When the appendable could not be appended to.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	@Throws(IOException::class)
+	fun appendJsonTo(out: Appendable, client: Client?): Appendable {
+		writeJson(JsonSink.Appender(out), client)
+		return out
+	}
+
+	/**
+	 * Appends the text as serialized Minecraft text JSON.
+	 *
+	 * @param out The string builder to append to.
+	 * @param client The client information.
+	 * @return The string builder.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun appendJsonTo(out: StringBuilder, client: Client?): StringBuilder {
+		appendJsonTo(out as Appendable, client)
+		return out
+	}
+
+	/**
+	 * Writes the text as Minecraft text JSON.
+	 *
+	 * The built-in nodes override this to stream their JSON. Other subclasses can only override [toJson], so their
+	 * JSON tree is written instead.
+	 */
+	@Throws(IOException::class)
+	internal open fun writeJson(out: JsonSink, client: Client?) {
+		out.element(toJson(client))
 	}
 
 
@@ -180,7 +263,142 @@ abstract class Node {
 
 	companion object {
 
-//		fun parse
+		/**
+		 * Parses a legacy Minecraft text string into text nodes.
+		 * Recently parsed strings are cached, so repeated messages are only parsed once.
+		 *
+		 * @param text The legacy text string.
+		 * @return The text nodes. This list cannot be modified.
+		 *
+		 * @see LegacyParser
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun parse(text: CharSequence): List<TextNode> {
+			return LegacyParser.of(false).toNodes(text)
+		}
+
+		/**
+		 * Parses a legacy Minecraft text string into text nodes.
+		 * Recently parsed strings are cached, so repeated messages are only parsed once.
+		 *
+		 * @param text The legacy text string.
+		 * @param alternateCodes Whether `&` can be used as the code specifier.
+		 * @return The text nodes. This list cannot be modified.
+		 *
+		 * @see LegacyParser
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun parse(text: CharSequence, alternateCodes: Boolean): List<TextNode> {
+			return LegacyParser.of(alternateCodes).toNodes(text)
+		}
+
+		/**
+		 * The default maximum nesting depth of text JSON read by [fromJson].
+		 *
+		 * @since 1.0
+		 */
+		@Export
+		const val DEFAULT_MAX_JSON_DEPTH: Int = 32
+
+		/**
+		 * The default maximum length of the text read by [fromJson].
+		 *
+		 * @since 1.0
+		 */
+		@Export
+		const val DEFAULT_MAX_JSON_LENGTH: Int = 262144
+
+		/**
+		 * Reads Minecraft text JSON into text nodes, without creating a JSON tree.
+		 *
+		 * The component and its `extra` children are flattened into one text node per run of text. Children inherit the
+		 * color and styles of their parent unless they set them, a `color` of `reset` removes the inherited color, and
+		 * the components after the first in an array are children of the first. Only `text` components are supported,
+		 * and other properties (such as click and hover events) are ignored.
+		 *
+		 * Reading stops as soon as the components are nested deeper than [maxDepth], or their text is longer than
+		 * [maxLength]. Every component counts as one character, so empty components are limited too, and ignored
+		 * properties count towards both limits.
+		 *
+		 * @param reader The JSON reader.
+		 * @param maxDepth The maximum nesting depth of objects and arrays.
+		 * @param maxLength The maximum length of the text.
+		 * @return The text nodes. This list cannot be modified.
+		 *
+		 * @throws IOException When the JSON could not be read, or is malformed.
+		 * @throws IllegalArgumentException When the JSON is not a valid text component, or exceeds the limits.
+		 *
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@JvmOverloads
+		@Export
+		@Throws(IOException::class)
+		fun fromJson(reader: JsonReader, maxDepth: Int = DEFAULT_MAX_JSON_DEPTH, maxLength: Int = DEFAULT_MAX_JSON_LENGTH): List<TextNode> {
+			return JsonTextReader(reader, maxDepth, maxLength).read()
+		}
+
+		/**
+		 * Reads serialized Minecraft text JSON into text nodes, without creating a JSON tree.
+		 *
+		 * @param json The serialized JSON.
+		 * @return The text nodes. This list cannot be modified.
+		 *
+		 * @throws IllegalArgumentException When the JSON is malformed, is not a valid text component, or exceeds the
+		 *                                  default limits.
+		 *
+		 * @see fromJson
+		 * @since 1.0
+		 */
+		@JvmStatic
+		@Export
+		fun fromJson(json: String): List<TextNode> {
+			val reader = JsonReader(StringReader(json))
+			try {
+				val nodes = fromJson(reader)
+				if (reader.peek() != JsonToken.END_DOCUMENT) {
+					throw IllegalArgumentException("Unexpected data after the text component at ${reader.path}.")
+				}
+
+				return nodes
+			} catch (ex: IOException) {
+				throw IllegalArgumentException("Malformed text component JSON.", ex)
+			}
+		}
+
+		/**
+		 * Writes a styled run of text as Minecraft text JSON.
+		 * Unstyled text is written as a string, and styled text as an object with the same properties as [toJson].
+		 */
+		@JvmStatic
+		@Throws(IOException::class)
+		internal fun writeText(out: JsonSink, chars: CharSequence, start: Int, end: Int, color: Color?, style: Formatting.Combined?, rgb: Boolean) {
+			if (color == null && style == null) {
+				out.value(chars, start, end)
+				return
+			}
+
+			out.beginObject()
+			if (color != null) {
+				out.name("color")
+				out.value(if (rgb) color.name else color.legacyName)
+			}
+
+			if (style != null) {
+				for (property in style.jsonProperties) {
+					out.name(property)
+					out.value(true)
+				}
+			}
+
+			out.name("text")
+			out.value(chars, start, end)
+			out.endObject()
+		}
 
 	}
 
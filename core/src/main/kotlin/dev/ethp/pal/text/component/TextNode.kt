@@ -8,6 +8,10 @@ import dev.ethp.apistub.Export
 import dev.ethp.pal.text.Color
 import dev.ethp.pal.text.Formatting
 import dev.ethp.pal.client.Client
+import dev.ethp.pal.client.ClientFeature.TEXT_RGB
+import dev.ethp.pal.text.component.Node.Companion.writeText
+import dev.ethp.pal.util.JsonSink
+import java.io.IOException
 
 /**
  * A basic text node.
@@ -77,7 +81,7 @@ class TextNode : Node {
 	 * @since 1.0
 	 */
 	@Export
-	constructor(text: String, style: Formatting) : this(text, Formatting.Combined(style))
+	constructor(text: String, style: Formatting) : this(text, Formatting.Combined.of(style))
 
 	/**
 	 * Creates a new text node with a formatting style.
@@ -88,7 +92,7 @@ class TextNode : Node {
 	 * @since 1.0
 	 */
 	@Export
-	constructor(text: String, vararg style: Formatting) : this(text, Formatting.Combined(*style))
+	constructor(text: String, vararg style: Formatting) : this(text, Formatting.Combined.of(*style))
 
 	/**
 	 * Creates a new text node with a color and a formatting style.
@@ -100,7 +104,7 @@ class TextNode : Node {
 	 * @since 1.0
 	 */
 	@Export
-	constructor(text: String, color: Color, style: Formatting) : this(text, color, Formatting.Combined(style))
+	constructor(text: String, color: Color, style: Formatting) : this(text, color, Formatting.Combined.of(style))
 
 	/**
 	 * Creates a new text node with a color and a formatting style.
@@ -112,7 +116,7 @@ class TextNode : Node {
 	 * @since 1.0
 	 */
 	@Export
-	constructor(text: String, color: Color, vararg style: Formatting) : this(text, color, Formatting.Combined(*style))
+	constructor(text: String, color: Color, vararg style: Formatting) : this(text, color, Formatting.Combined.of(*style))
 
 	/**
 	 * Creates a new text node with a color and a formatting style.
@@ -161,14 +165,17 @@ class TextNode : Node {
 	}
 
 	/**
-	 * Gets the text as a legacy Minecraft text string.
-	 * @return The legacy text string with Minecraft formatting codes.
+	 * Appends the text as a legacy Minecraft text string.
+	 *
+	 * @param out The appendable to append to.
+	 * @return The appendable.
 	 * 
 	 * @since 1.0
 	 */
 	@Export
-	override fun toLegacyString(): String {
-		return "${super.toLegacyString()}$text"
+	@Throws(IOException::class)
+	override fun appendLegacyTo(out: Appendable): Appendable {
+		return super.appendLegacyTo(out).append(this.text)
 	}
 
 	@Export
@@ -180,5 +187,10 @@ class TextNode : Node {
 		obj.add("text", JsonPrimitive(this.text))
 		return obj
 	}
+
+	@Throws(IOException::class)
+	override fun writeJson(out: JsonSink, client: Client?) {
+		writeText(out, this.text, 0, this.text.length, this.color, this.style, client != null && client supports TEXT_RGB)
+	}
 	
 }
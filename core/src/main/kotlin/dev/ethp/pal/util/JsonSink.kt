@@ -0,0 +1,234 @@
+package dev.ethp.pal.util
+
+import com.google.gson.JsonElement
+import com.google.gson.stream.JsonWriter
+import dev.ethp.pal._internal.gson
+import java.io.IOException
+
+/**
+ * A destination for streamed JSON.
+ * This lets the same serialization code write to a Gson [JsonWriter] or directly to an [Appendable].
+ */
+internal interface JsonSink {
+
+	@Throws(IOException::class)
+	fun beginObject()
+
+	@Throws(IOException::class)
+	fun endObject()
+
+	@Throws(IOException::class)
+	fun beginArray()
+
+	@Throws(IOException::class)
+	fun endArray()
+
+	@Throws(IOException::class)
+	fun name(name: String)
+
+	@Throws(IOException::class)
+	fun value(value: CharSequence, start: Int, end: Int)
+
+	@Throws(IOException::class)
+	fun value(value: CharSequence) {
+		value(value, 0, value.length)
+	}
+
+	@Throws(IOException::class)
+	fun value(value: Boolean)
+
+	@Throws(IOException::class)
+	fun nullValue()
+
+	/**
+	 * Writes a JSON tree.
+	 * This is slower than streaming the values, and is only used for JSON that cannot be streamed.
+	 */
+	@Throws(IOException::class)
+	fun element(value: JsonElement)
+
+	/**
+	 * Writes JSON to a Gson [JsonWriter].
+	 */
+	class Gson(private val out: JsonWriter) : JsonSink {
+
+		override fun beginObject() {
+			out.beginObject()
+		}
+
+		override fun endObject() {
+			out.endObject()
+		}
+
+		override fun beginArray() {
+			out.beginArray()
+		}
+
+		override fun endArray() {
+			out.endArray()
+		}
+
+		override fun name(name: String) {
+			out.name(name)
+		}
+
+		override fun value(value: CharSequence, start: Int, end: Int) {
+			out.value(value.subSequence(start, end).toString())
+		}
+
+		override fun value(value: Boolean) {
+			out.value(value)
+		}
+
+		override fun nullValue() {
+			out.nullValue()
+		}
+
+		override fun element(value: JsonElement) {
+			gson.toJson(value, out)
+		}
+
+	}
+
+	/**
+	 * Writes compact JSON directly to an [Appendable].
+	 * Strings are escaped the same way Gson escapes them, including the HTML-sensitive characters.
+	 *
+	 * Nesting is tracked with a bitfield, so this supports up to [MAX_DEPTH] levels of objects and arrays.
+	 */
+	class Appender(private val out: Appendable) : JsonSink {
+
+		/**
+		 * A bit for every open object or array, set once it has a value and needs a comma before the next one.
+		 */
+		private var separators: Long = 0
+		private var depth: Int = 0
+
+		override fun beginObject() {
+			beforeValue()
+			open()
+			out.append('{')
+		}
+
+		override fun endObject() {
+			close()
+			out.append('}')
+		}
+
+		override fun beginArray() {
+			beforeValue()
+			open()
+			out.append('[')
+		}
+
+		override fun endArray() {
+			close()
+			out.append(']')
+		}
+
+		override fun name(name: String) {
+			beforeValue()
+			string(name, 0, name.length)
+			out.append(':')
+			separators = separators and (1L shl (depth - 1)).inv()
+		}
+
+		override fun value(value: CharSequence, start: Int, end: Int) {
+			beforeValue()
+			string(value, start, end)
+		}
+
+		override fun value(value: Boolean) {
+			beforeValue()
+			out.append(if (value) "true" else "false")
+		}
+
+		override fun nullValue() {
+			beforeValue()
+			out.append("null")
+		}
+
+		override fun element(value: JsonElement) {
+			beforeValue()
+			out.append(gson.toJson(value))
+		}
+
+		private fun open() {
+			if (depth == MAX_DEPTH) {
+				throw IllegalStateException("JSON is nested deeper than $MAX_DEPTH levels.")
+			}
+
+			depth++
+			separators = separators and (1L shl (depth - 1)).inv()
+		}
+
+		private fun close() {
+			if (depth == 0) {
+				throw IllegalStateException("There is no object or array to close.")
+			}
+
+			depth--
+		}
+
+		private fun beforeValue() {
+			if (depth == 0) return
+
+			val bit = 1L shl (depth - 1)
+			if ((separators and bit) != 0L) out.append(',')
+			separators = separators or bit
+		}
+
+		private fun string(value: CharSequence, start: Int, end: Int) {
+			out.append('"')
+
+			var runStart = start
+			for (i in start until end) {
+				val c = value[i]
+				val replacement = when {
+					c.toInt() < ESCAPES.size -> ESCAPES[c.toInt()] ?: continue
+					c == '\u2028' -> "\\u2028"
+					c == '\u2029' -> "\\u2029"
+					else -> continue
+				}
+
+				out.append(value, runStart, i).append(replacement)
+				runStart = i + 1
+			}
+
+			out.append(value, runStart, end).append('"')
+		}
+
+	}
+
+	companion object {
+
+		/**
+		 * The deepest nesting supported by [Appender].
+		 */
+		const val MAX_DEPTH: Int = 64
+
+		/**
+		 * The escape sequences of the ASCII characters that need them.
+		 */
+		private val ESCAPES: Array<String?> = arrayOfNulls<String>(128).also { escapes ->
+			for (c in 0 until 0x20) {
+				escapes[c] = String.format("\\u%04x", c)
+			}
+
+			escapes['"'.toInt()] = "\\\""
+			escapes['\\'.toInt()] = "\\\\"
+			escapes['\t'.toInt()] = "\\t"
+			escapes['\b'.toInt()] = "\\b"
+			escapes['\n'.toInt()] = "\\n"
+			escapes['\r'.toInt()] = "\\r"
+			escapes['\u000C'.toInt()] = "\\f"
+			escapes['<'.toInt()] = "\\u003c"
+			escapes['>'.toInt()] = "\\u003e"
+			escapes['&'.toInt()] = "\\u0026"
+			escapes['='.toInt()] = "\\u003d"
+			escapes['\''.toInt()] = "\\u0027"
+		}
+
+	}
+
+}
@@ -0,0 +1,188 @@
+package dev.ethp.pal.util
+
+import dev.ethp.apistub.Export
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.Function
+import java.util.function.ToIntBiFunction
+
+/**
+ * A bounded cache that discards the least recently used entries.
+ *
+ * The cache is limited by both the number of entries and their total weight. Values are computed outside of the
+ * cache's lock, so a slow computation never blocks readers. Two threads computing the same missing key at the same
+ * time may both compute it, but only one value is kept.
+ *
+ * @param maxSize The maximum number of entries.
+ * @param maxWeight The maximum total weight of the entries.
+ * @param weigher Calculates the weight of an entry.
+ *
+ * @since 1.0
+ */
+@Export
+class LruCache<K : Any, V : Any> @JvmOverloads constructor(
+		@Export val maxSize: Int,
+		@Export val maxWeight: Long = Long.MAX_VALUE,
+		private val weigher: ToIntBiFunction<in K, in V> = ToIntBiFunction { _, _ -> 1 }
+) {
+
+	init {
+		if (maxSize <= 0) {
+			throw IllegalArgumentException("Invalid cache size: $maxSize")
+		}
+
+		if (maxWeight <= 0) {
+			throw IllegalArgumentException("Invalid cache weight: $maxWeight")
+		}
+	}
+
+	/**
+	 * The entries, in least recently used order.
+	 */
+	private val entries: LinkedHashMap<K, Entry<V>> = LinkedHashMap(16, 0.75f, true)
+
+	private var _weight: Long = 0
+	private val _hits: AtomicLong = AtomicLong()
+	private val _misses: AtomicLong = AtomicLong()
+	private val _evictions: AtomicLong = AtomicLong()
+
+	/**
+	 * The number of entries in the cache.
+	 * @since 1.0
+	 */
+	val size: Int
+		@Export get() = synchronized(entries) { entries.size }
+
+	/**
+	 * The total weight of the entries in the cache.
+	 * @since 1.0
+	 */
+	val weight: Long
+		@Export get() = synchronized(entries) { _weight }
+
+	/**
+	 * The number of lookups that found a value.
+	 * @since 1.0
+	 */
+	val hits: Long
+		@Export get() = _hits.get()
+
+	/**
+	 * The number of lookups that did not find a value.
+	 * @since 1.0
+	 */
+	val misses: Long
+		@Export get() = _misses.get()
+
+	/**
+	 * The number of entries discarded to stay within the limits.
+	 * @since 1.0
+	 */
+	val evictions: Long
+		@Export get() = _evictions.get()
+
+	/**
+	 * Gets a cached value.
+	 *
+	 * @param key The key.
+	 * @return The value, or null if it is not cached.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	operator fun get(key: K): V? {
+		val entry = synchronized(entries) { entries[key] }
+		if (entry == null) {
+			_misses.incrementAndGet()
+			return null
+		}
+
+		_hits.incrementAndGet()
+		return entry.value
+	}
+
+	/**
+	 * Gets a cached value, or computes and caches it if it is not cached.
+	 *
+	 * @param key The key.
+	 * @param compute Computes the value.
+	 * @return The cached or computed value.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun computeIfAbsent(key: K, compute: Function<in K, out V>): V {
+		val cached = get(key)
+		if (cached != null) return cached
+		return putIfAbsent(key, compute.apply(key))
+	}
+
+	/**
+	 * Caches a value, replacing any value that is already cached.
+	 * Entries heavier than [maxWeight] are not cached.
+	 *
+	 * @param key The key.
+	 * @param value The value.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun put(key: K, value: V) {
+		val weight = weigher.applyAsInt(key, value)
+		if (weight > maxWeight) return
+
+		synchronized(entries) {
+			val previous = entries.put(key, Entry(value, weight))
+			if (previous != null) _weight -= previous.weight
+			_weight += weight
+			evict()
+		}
+	}
+
+	/**
+	 * Removes every cached value.
+	 * This does not reset the counters.
+	 *
+	 * @since 1.0
+	 */
+	@Export
+	fun clear() {
+		synchronized(entries) {
+			entries.clear()
+			_weight = 0
+		}
+	}
+
+	@Export
+	override fun toString(): String {
+		return "LruCache(size=$size, weight=$weight, hits=$hits, misses=$misses)"
+	}
+
+	private fun putIfAbsent(key: K, value: V): V {
+		val weight = weigher.applyAsInt(key, value)
+		if (weight > maxWeight) return value
+
+		synchronized(entries) {
+			val existing = entries[key]
+			if (existing != null) return existing.value
+
+			entries[key] = Entry(value, weight)
+			_weight += weight
+			evict()
+		}
+
+		return value
+	}
+
+	private fun evict() {
+		val iterator = entries.values.iterator()
+		while (entries.size > maxSize || _weight > maxWeight) {
+			val eldest = iterator.next()
+			iterator.remove()
+			_weight -= eldest.weight
+			_evictions.incrementAndGet()
+		}
+	}
+
+	private class Entry<V>(val value: V, val weight: Int)
+
+}
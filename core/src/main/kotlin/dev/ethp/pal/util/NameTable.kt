@@ -0,0 +1,124 @@
+package dev.ethp.pal.util
+
+/**
+ * A fixed table of values looked up by name.
+ *
+ * Names are compared ignoring case, and spaces are treated the same as underscores. Lookups hash and compare the
+ * characters as they are read, so they never allocate a normalized copy of the name.
+ *
+ * @param entries The names and their values.
+ */
+internal class NameTable<T : Any>(vararg entries: Pair<String, T>) {
+
+	/**
+	 * The normalized names, indexed by hash slot.
+	 */
+	private val keys: Array<String?>
+
+	/**
+	 * The values, indexed by hash slot.
+	 */
+	private val values: Array<Any?>
+
+	/**
+	 * The mask used to turn a hash into a slot.
+	 */
+	private val mask: Int
+
+	init {
+		var capacity = 4
+		while (capacity < entries.size * 4) capacity = capacity shl 1
+
+		this.keys = arrayOfNulls(capacity)
+		this.values = arrayOfNulls(capacity)
+		this.mask = capacity - 1
+
+		for ((name, value) in entries) {
+			val key = String(CharArray(name.length) { i -> normalize(name[i]) })
+			var slot = slot(hash(key, 0, key.length))
+			while (this.keys[slot] != null) {
+				if (this.keys[slot] == key) throw IllegalArgumentException("'${name}' is already in the table.")
+				slot = (slot + 1) and this.mask
+			}
+
+			this.keys[slot] = key
+			this.values[slot] = value
+		}
+	}
+
+	/**
+	 * Finds the value for a name inside a larger sequence of characters.
+	 *
+	 * @param chars The characters.
+	 * @param offset The index of the first character of the name.
+	 * @param length The number of characters in the name.
+	 * @return The value, or null if there is no value with the name.
+	 *
+	 * @throws IndexOutOfBoundsException When the range is outside the characters.
+	 */
+	operator fun get(chars: CharSequence, offset: Int, length: Int): T? {
+		if (length < 0 || offset < 0 || offset > chars.length - length) {
+			throw IndexOutOfBoundsException("Invalid range of $length characters from $offset.")
+		}
+
+		var slot = slot(hash(chars, offset, length))
+		while (true) {
+			val key = this.keys[slot] ?: return null
+			if (matches(key, chars, offset, length)) {
+				@Suppress("UNCHECKED_CAST")
+				return this.values[slot] as T
+			}
+
+			slot = (slot + 1) and this.mask
+		}
+	}
+
+	/**
+	 * Finds the value for a name.
+	 *
+	 * @param chars The name.
+	 * @return The value, or null if there is no value with the name.
+	 */
+	operator fun get(chars: CharSequence): T? {
+		return get(chars, 0, chars.length)
+	}
+
+	private fun slot(hash: Int): Int {
+		return (hash * -0x61c88647 ushr 16) and this.mask
+	}
+
+	companion object {
+
+		@JvmStatic
+		private fun normalize(c: Char): Char {
+			return when (c) {
+				in 'a'..'z' -> c - ('a' - 'A')
+				' ' -> '_'
+				in '\u0000'..'\u007F' -> c
+				else -> Character.toUpperCase(c)
+			}
+		}
+
+		@JvmStatic
+		private fun hash(chars: CharSequence, offset: Int, length: Int): Int {
+			var hash = length
+			for (i in offset until offset + length) {
+				hash = hash * 31 + normalize(chars[i]).toInt()
+			}
+
+			return hash
+		}
+
+		@JvmStatic
+		private fun matches(key: String, chars: CharSequence, offset: Int, length: Int): Boolean {
+			if (key.length != length) return false
+			for (i in 0 until length) {
+				if (key[i] != normalize(chars[offset + i])) return false
+			}
+
+			return true
+		}
+
+	}
+
+}
@@ -107,21 +107,46 @@ open class Version(@Export val major: Int, @Export val minor: Int, @Export val p
 		@Export
 		@JvmStatic
 		fun parse(version: String): Optional<Version> {
-			var split = version.split('.')
-			when (split.size) {
-				2 -> split = split + "0"
-				3 -> {
+			return Optional.ofNullable(parseOrNull(version))
+		}
+
+		/**
+		 * Parses a version string into a [Version].
+		 * This does not allocate anything other than the version object.
+		 *
+		 * @param version The version string to parse.
+		 * @return The corresponding version object, or null if an invalid version string is provided.
+		 *
+		 * @since 1.0
+		 */
+		@Export
+		@JvmStatic
+		fun parseOrNull(version: CharSequence): Version? {
+			var major = 0
+			var minor = 0
+			var patch = 0
+
+			var part = 0
+			var start = 0
+			while (true) {
+				var end = start
+				while (end < version.length && version[end] != '.') end++
+
+				val number = parseNumber(version, start, end)
+				if (number == INVALID_NUMBER) return null
+				when (part++) {
+					0 -> major = number.toInt()
+					1 -> minor = number.toInt()
+					2 -> patch = number.toInt()
+					else -> return null
 				}
-				else -> return Optional.empty()
-			}
 
-			// Create a new version.
-			try {
-				val splitInt = split.map { n -> n.toInt(10) }
-				return Optional.of(Version(splitInt[0], splitInt[1], splitInt[2]))
-			} catch (ex: NumberFormatException) {
-				return Optional.empty()
+				if (end == version.length) break
+				start = end + 1
 			}
+
+			if (part < 2) return null
+			return Version(major, minor, patch)
 		}
 
 		/**
@@ -137,9 +162,38 @@ open class Version(@Export val major: Int, @Export val minor: Int, @Export val p
 		@Export
 		@JvmStatic
 		fun parseUnsafe(version: String): Version {
-			return parse(version).orElseThrow {
-				throw IllegalArgumentException("Invalid version string: $version")
+			return parseOrNull(version) ?: throw IllegalArgumentException("Invalid version string: $version")
+		}
+
+		private const val INVALID_NUMBER: Long = Long.MIN_VALUE
+
+		/**
+		 * Parses a signed decimal integer between two indices.
+		 *
+		 * @return The integer, or [INVALID_NUMBER] if it is empty, invalid, or does not fit in an [Int].
+		 */
+		@JvmStatic
+		private fun parseNumber(chars: CharSequence, start: Int, end: Int): Long {
+			var index = start
+			var negative = false
+			if (index < end && (chars[index] == '-' || chars[index] == '+')) {
+				negative = chars[index] == '-'
+				index++
+			}
+
+			if (index == end) return INVALID_NUMBER
+
+			var value = 0L
+			while (index < end) {
+				val digit = Character.digit(chars[index++], 10)
+				if (digit == -1) return INVALID_NUMBER
+
+				value = value * 10 + digit
+				if (value > Int.MAX_VALUE.toLong() + 1) return INVALID_NUMBER
 			}
+
+			if (negative) return -value
+			return if (value > Int.MAX_VALUE) INVALID_NUMBER else value
 		}
 
 		// ----------------------------------------
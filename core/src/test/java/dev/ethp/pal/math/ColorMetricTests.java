@@ -0,0 +1,90 @@
+package dev.ethp.pal.math;
+
+import dev.ethp.pal.math.ColorSpace.LAB;
+import dev.ethp.pal.math.ColorSpace.RGB;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColorMetricTests {
+
+	/**
+	 * Test that every metric considers a color identical to itself.
+	 */
+	@Test
+	void testIdentical() {
+		for (ColorMetric metric : ColorMetric.values()) {
+			for (int rgb : new int[] { 0x000000, 0xFFFFFF, 0xFF8800, 0x1234FF }) {
+				assertThat(metric.delta(rgb, rgb))
+						.describedAs(metric.getName())
+						.isCloseTo(0, Offset.offset(0.0001));
+			}
+		}
+	}
+
+	/**
+	 * Test that every metric prefers a closer color.
+	 */
+	@Test
+	void testOrdering() {
+		for (ColorMetric metric : ColorMetric.values()) {
+			assertThat(metric.delta(0xFF0000, 0xF00000))
+					.describedAs(metric.getName())
+					.isLessThan(metric.delta(0xFF0000, 0x00FF00));
+		}
+	}
+
+	/**
+	 * Test {@link ColorMetric#CIE76}.
+	 */
+	@Test
+	void testCie76() {
+		LAB a = new RGB(0xFF8800).toLAB();
+		LAB b = new RGB(0x1234FF).toLAB();
+		double expected = Math.sqrt(
+				(a.getL() - b.getL()) * (a.getL() - b.getL()) +
+				(a.getA() - b.getA()) * (a.getA() - b.getA()) +
+				(a.getB() - b.getB()) * (a.getB() - b.getB())
+		);
+
+		assertThat(ColorMetric.CIE76.delta(0xFF8800, 0x1234FF)).isCloseTo(expected, Offset.offset(0.0001));
+	}
+
+	/**
+	 * Test {@link ColorMetric#CIE94}.
+	 * Neutral colors only differ in lightness, where CIE94 is the same as CIE76.
+	 */
+	@Test
+	void testCie94() {
+		assertThat(ColorMetric.CIE94.delta(0x000000, 0x808080))
+				.isCloseTo(ColorMetric.CIE76.delta(0x000000, 0x808080), Offset.offset(0.001));
+
+		assertThat(ColorMetric.CIE94.delta(0xFF8800, 0x1234FF))
+				.isLessThan(ColorMetric.CIE76.delta(0xFF8800, 0x1234FF));
+	}
+
+	/**
+	 * Test {@link ColorMetric#CIEDE2000}.
+	 */
+	@Test
+	void testCiede2000() {
+		assertThat(ColorMetric.CIEDE2000.delta(0xFF8800, 0x1234FF))
+				.isCloseTo(new RGB(0xFF8800).toLAB().delta(new RGB(0x1234FF).toLAB()), Offset.offset(0.0001));
+
+		// The prepared coordinates include the chroma.
+		double[] prepared = new double[ColorMetric.CIEDE2000.getStride()];
+		ColorMetric.CIEDE2000.prepare(0xFF8800, prepared, 0);
+		assertThat(prepared[3]).isCloseTo(Math.hypot(prepared[1], prepared[2]), Offset.offset(1e-9));
+	}
+
+	/**
+	 * Test {@link ColorMetric#REDMEAN}.
+	 */
+	@Test
+	void testRedmean() {
+		// Mean red is 127.5, so the red and blue weights are both (2 + 127.5 / 256).
+		assertThat(ColorMetric.REDMEAN.delta(0x000000, 0xFFFFFF))
+				.isCloseTo(Math.sqrt((2 * (2 + 127.5 / 256) + 4) * 255 * 255), Offset.offset(0.0001));
+	}
+
+}
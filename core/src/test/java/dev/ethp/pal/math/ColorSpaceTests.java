@@ -3,12 +3,14 @@ package dev.ethp.pal.math;
 import dev.ethp.pal.math.ColorSpace.RGB;
 import dev.ethp.pal.math.ColorSpace.XYZ;
 import dev.ethp.pal.math.ColorSpace.LAB;
+import dev.ethp.pal.math.ColorSpace.OKLab;
 import org.assertj.core.data.Offset;
 import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import static dev.ethp.pal.math.asserts.XyzAssert.assertThat;
 import static dev.ethp.pal.math.asserts.RgbAssert.assertThat;
 import static dev.ethp.pal.math.asserts.LabAssert.assertThat;
+import static dev.ethp.pal.math.asserts.OkLabAssert.assertThat;
 
 public class ColorSpaceTests {
 
@@ -39,6 +41,37 @@ public class ColorSpaceTests {
 				.hasLAB(76.964, -12.369, -25.878);
 	}
 
+	@Test
+	void xyzToRgb() {
+		assertThat(new XYZ(41.246, 21.267, 1.933).toRGB()).hasRGB(1.0, 0.0, 0.0);
+		assertThat(new XYZ(44.530, 51.471, 87.808).toRGB()).hasRGB(0.50, 0.78, 0.93);
+	}
+
+	@Test
+	void labToXyz() {
+		assertThat(new LAB(76.964, -12.369, -25.878).toXYZ(ColorSpace.XYZ.REFERENCE_D65))
+				.hasXYZ(44.530, 51.471, 87.808);
+	}
+
+	@Test
+	void labToRgb() {
+		assertThat(new LAB(76.964, -12.369, -25.878).toRGB()).hasRGB(0.50, 0.78, 0.93);
+	}
+
+	@Test
+	void rgbToOkLab() {
+		// https://bottosson.github.io/posts/oklab/
+		assertThat(new RGB(1.0, 1.0, 1.0).toOKLab()).hasOKLab(1.0, 0.0, 0.0);
+		assertThat(new RGB(1.0, 0.0, 0.0).toOKLab()).hasOKLab(0.62796, 0.22486, 0.12585);
+		assertThat(new RGB(0.0, 0.0, 1.0).toOKLab()).hasOKLab(0.45201, -0.03246, -0.31153);
+	}
+
+	@Test
+	void okLabToRgb() {
+		assertThat(new OKLab(0.62796, 0.22486, 0.12585).toRGB()).hasRGB(1.0, 0.0, 0.0);
+		assertThat(new RGB(0.50, 0.78, 0.93).toOKLab().toRGB()).hasRGB(0.50, 0.78, 0.93);
+	}
+
 	@Test
 	void deltaE() {
 		final double PRECISION = 5;
@@ -61,5 +94,92 @@ public class ColorSpaceTests {
 				.isCloseTo( 111.2875, Offset.offset(PRECISION));
 	}
 
-}
+	@Test
+	void primitiveRgbToXyz() {
+		double[] xyz = new double[4];
+		ColorSpace.rgbToXYZ(0xFF0000, xyz, 1);
+		assertThat(new XYZ(xyz[1], xyz[2], xyz[3])).hasXYZ(41.246, 21.267, 1.933);
+
+		ColorSpace.rgbToXYZ(0.50, 0.78, 0.93, xyz, 0);
+		assertThat(new XYZ(xyz[0], xyz[1], xyz[2])).hasXYZ(44.530, 51.471, 87.808);
+	}
+
+	@Test
+	void primitiveXyzToLab() {
+		double[] lab = new double[3];
+		ColorSpace.xyzToLAB(44.530, 51.471, 87.808, ColorSpace.XYZ.REFERENCE_D65, lab, 0);
+		assertThat(new LAB(lab[0], lab[1], lab[2])).hasLAB(76.964, -12.369, -25.878);
+	}
+
+	@Test
+	void primitiveRgbToLab() {
+		double[] lab = new double[6];
+		for (int rgb : new int[] { 0x000000, 0xFFFFFF, 0xFF3344, 0x1234FF, 0xCF9000 }) {
+			ColorSpace.rgbToLAB(rgb, lab, 3);
+			assertThat(new LAB(lab[3], lab[4], lab[5])).isEqualTo(new RGB(rgb).toLAB());
+		}
+	}
+
+	@Test
+	void primitiveDeltaE() {
+		double[] lab = new double[] { 76.964, -12.369, -25.878, 65.065, -21.571, -26.261 };
+		assertThat(ColorSpace.deltaLAB(lab, 0, lab, 3))
+				.isEqualTo(new LAB(76.964, -12.369, -25.878).delta(new LAB(65.065, -21.571, -26.261)));
+	}
+
+	@Test
+	void primitiveDeltaEReference() {
+		// Sharma, Wu, and Dalal (2005), "The CIEDE2000 Color-Difference Formula", Table 1.
+		assertThat(ColorSpace.deltaLAB(50, 2.6772, -79.7751, 50, 0, -82.7485)).isCloseTo(2.0425, Offset.offset(0.0001));
+		assertThat(ColorSpace.deltaLAB(50, 0, 0, 50, -1, 2)).isCloseTo(2.3669, Offset.offset(0.0001));
+		assertThat(ColorSpace.deltaLAB(50, 2.5, 0, 73, 25, -18)).isCloseTo(27.1492, Offset.offset(0.0001));
+		assertThat(ColorSpace.deltaLAB(50, 2.5, 0, 56, -27, -3)).isCloseTo(31.9030, Offset.offset(0.0001));
+	}
+
+	@Test
+	void primitiveLinearizationTable() {
+		double[] expected = new double[3];
+		double[] actual = new double[3];
+		for (int c = 0; c <= 0xFF; c++) {
+			ColorSpace.rgbToXYZ(c / 255.0, (0xFF - c) / 255.0, (c ^ 0x5A) / 255.0, expected, 0);
+			ColorSpace.rgbToXYZ((c << 16) | ((0xFF - c) << 8) | (c ^ 0x5A), actual, 0);
+			assertThat(actual).containsExactly(expected);
+		}
+	}
 
+	@Test
+	void primitiveLabTransfer() {
+		double[] lab = new double[3];
+		for (double y = 0.9; y <= 150.0; y += 0.37) {
+			ColorSpace.xyzToLAB(0, y, 0, ColorSpace.XYZ.REFERENCE_D65, lab, 0);
+			assertThat(lab[0]).isCloseTo((116.0 * Math.pow(y / 100.0, 1.0 / 3.0)) - 16.0, Offset.offset(1e-12));
+		}
+	}
+
+	@Test
+	void primitiveRoundTrip() {
+		double[] lab = new double[3];
+		double[] scratch = new double[3];
+		for (int rgb = 0; rgb <= 0xFFFFFF; rgb += 0x010307) {
+			ColorSpace.rgbToLAB(rgb, lab, 0);
+			assertThat(ColorSpace.labToRGB(lab[0], lab[1], lab[2], scratch)).isEqualTo(rgb);
+
+			ColorSpace.rgbToOKLab(rgb, lab, 0);
+			assertThat(ColorSpace.okLabToRGB(lab[0], lab[1], lab[2], scratch)).isEqualTo(rgb);
+		}
+	}
+
+	@Test
+	void primitiveGammaEncodeTable() {
+		double[] scratch = new double[3];
+		for (double y = 0.0; y <= 100.0; y += 0.013) {
+			RGB expected = new XYZ(y * 0.95047, y, y * 1.08883).toRGB();
+			int channel = (int) Math.round(expected.getG() * 0xFF);
+			assertThat(ColorSpace.xyzToRGB(y * 0.95047, y, y * 1.08883, scratch) & 0xFF00).isEqualTo(channel << 8);
+		}
+
+		assertThat(ColorSpace.xyzToRGB(-5.0, -5.0, -5.0, scratch)).isEqualTo(0x000000);
+		assertThat(ColorSpace.xyzToRGB(200.0, 200.0, 200.0, scratch)).isEqualTo(0xFFFFFF);
+	}
+
+}
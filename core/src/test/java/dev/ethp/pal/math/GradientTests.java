@@ -0,0 +1,66 @@
+package dev.ethp.pal.math;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GradientTests {
+
+	@Test
+	void testEndpoints() {
+		for (Gradient.Space space : Gradient.Space.values()) {
+			Gradient gradient = new Gradient(new int[] { 0xFF3344, 0x1234FF, 0x00CF90 }, space);
+			assertThat(gradient.sample(0.0)).isEqualTo(0xFF3344);
+			assertThat(gradient.sample(0.5)).isEqualTo(0x1234FF);
+			assertThat(gradient.sample(1.0)).isEqualTo(0x00CF90);
+			assertThat(gradient.sample(-1.0)).isEqualTo(0xFF3344);
+			assertThat(gradient.sample(2.0)).isEqualTo(0x00CF90);
+		}
+	}
+
+	@Test
+	void testSingleColor() {
+		Gradient gradient = new Gradient(new int[] { 0xFF3344 });
+		assertThat(gradient.sample(0.5)).isEqualTo(0xFF3344);
+		assertThat(gradient.sample(3)).containsExactly(0xFF3344, 0xFF3344, 0xFF3344);
+	}
+
+	@Test
+	void testRgb() {
+		Gradient gradient = new Gradient(new int[] { 0x000000, 0xFF0080 }, Gradient.Space.RGB);
+		assertThat(gradient.sample(0.5)).isEqualTo(0x800040);
+	}
+
+	@Test
+	void testPerceptual() {
+		// Blending in a perceptual space keeps the midpoint of black and white brighter than blending sRGB values.
+		for (Gradient.Space space : new Gradient.Space[] { Gradient.Space.LAB, Gradient.Space.OKLAB }) {
+			int middle = new Gradient(new int[] { 0x000000, 0xFFFFFF }, space).sample(0.5);
+			assertThat(middle >> 16).isEqualTo(middle & 0xFF).isGreaterThan(0x60).isLessThan(0x80);
+		}
+	}
+
+	@Test
+	void testSampleArray() {
+		Gradient gradient = new Gradient(new int[] { 0xFF0000, 0x0000FF });
+		int[] colors = gradient.sample(5);
+		assertThat(colors).hasSize(5);
+		assertThat(colors[0]).isEqualTo(0xFF0000);
+		assertThat(colors[2]).isEqualTo(gradient.sample(0.5));
+		assertThat(colors[4]).isEqualTo(0x0000FF);
+
+		int[] out = new int[7];
+		gradient.sample(out, 1, 5);
+		assertThat(out).containsExactly(0, colors[0], colors[1], colors[2], colors[3], colors[4], 0);
+		assertThat(gradient.sample(1)).containsExactly(0xFF0000);
+		assertThat(gradient.sample(0)).isEmpty();
+	}
+
+	@Test
+	void testInvalid() {
+		assertThatThrownBy(() -> new Gradient(new int[0])).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new Gradient(new int[] { 0 }).sample(new int[4], 2, 3))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+}
@@ -0,0 +1,163 @@
+package dev.ethp.pal.math;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import dev.ethp.pal.text.Color;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PaletteTests {
+
+	/**
+	 * The xterm 256 color palette.
+	 */
+	private static int[] xterm() {
+		int[] palette = new int[256];
+		int[] system = {
+				0x000000, 0x800000, 0x008000, 0x808000, 0x000080, 0x800080, 0x008080, 0xC0C0C0,
+				0x808080, 0xFF0000, 0x00FF00, 0xFFFF00, 0x0000FF, 0xFF00FF, 0x00FFFF, 0xFFFFFF
+		};
+
+		int[] levels = { 0x00, 0x5F, 0x87, 0xAF, 0xD7, 0xFF };
+		System.arraycopy(system, 0, palette, 0, system.length);
+		for (int i = 0; i < 216; i++) {
+			palette[16 + i] = (levels[i / 36] << 16) | (levels[(i / 6) % 6] << 8) | levels[i % 6];
+		}
+
+		for (int i = 0; i < 24; i++) {
+			int gray = 0x08 + (i * 10);
+			palette[232 + i] = (gray << 16) | (gray << 8) | gray;
+		}
+
+		return palette;
+	}
+
+	/**
+	 * Finds the nearest color by comparing against every color.
+	 */
+	private static int nearestLinear(int[] colors, ColorMetric metric, int rgb) {
+		int best = 0;
+		double bestDelta = Double.MAX_VALUE;
+		for (int i = 0; i < colors.length; i++) {
+			double delta = metric.delta(colors[i], rgb);
+			if (delta < bestDelta) {
+				bestDelta = delta;
+				best = i;
+			}
+		}
+
+		return best;
+	}
+
+	@Test
+	void testColors() {
+		int[] colors = new int[] { 0xFF000000, 0x123456, 0xABCDEF };
+		Palette palette = new Palette(colors);
+		assertThat(palette.getSize()).isEqualTo(3);
+		assertThat(palette.get(0)).isEqualTo(0x000000);
+		assertThat(palette.toIntArray()).containsExactly(0x000000, 0x123456, 0xABCDEF);
+		assertThat(palette.getMetric()).isSameAs(ColorMetric.CIEDE2000);
+	}
+
+	@Test
+	void testInvalid() {
+		assertThatThrownBy(() -> new Palette(new int[0])).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new Palette(new int[] { 0 }, ColorMetric.CIE76, -1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testExact() {
+		int[] colors = xterm();
+		for (ColorMetric metric : ColorMetric.values()) {
+			Palette palette = new Palette(colors, metric);
+			for (int i = 0; i < colors.length; i++) {
+				assertThat(palette.nearest(colors[i])).describedAs(metric.getName()).isEqualTo(colors[i]);
+			}
+		}
+	}
+
+	/**
+	 * Test that searching the k-d tree finds the same color as comparing against every color.
+	 */
+	@Test
+	void testTree() {
+		int[] colors = xterm();
+		for (ColorMetric metric : ColorMetric.values()) {
+			Palette palette = new Palette(colors, metric);
+			Random random = new Random(0);
+			for (int i = 0; i < 2000; i++) {
+				int rgb = random.nextInt() & 0xFFFFFF;
+				assertThat(palette.nearestIndex(rgb))
+						.describedAs("%s %06X", metric.getName(), rgb)
+						.isEqualTo(nearestLinear(colors, metric, rgb));
+			}
+		}
+	}
+
+	@Test
+	void testCache() {
+		int[] colors = xterm();
+		Palette palette = new Palette(colors, ColorMetric.CIE76, 64);
+		Random random = new Random(0);
+		for (int i = 0; i < 2000; i++) {
+			int rgb = random.nextInt(128) * 0x020301;
+			assertThat(palette.nearestIndex(rgb)).isEqualTo(nearestLinear(colors, ColorMetric.CIE76, rgb));
+		}
+	}
+
+	@Test
+	void testTable() {
+		Palette palette = new Palette(xterm(), ColorMetric.CIE76);
+		for (int r = 0; r <= 0xFF; r += 15) {
+			for (int g = 0; g <= 0xFF; g += 15) {
+				for (int b = 0; b <= 0xFF; b += 15) {
+					int rgb = (r << 16) | (g << 8) | b;
+					assertThat(palette.nearestIndex(rgb, true)).isEqualTo(palette.nearestIndex(rgb, false));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test that a written quantization table is only loaded by a palette with the same colors and metric.
+	 */
+	@Test
+	void testTableResource() throws IOException {
+		int[] colors = xterm();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new Palette(colors, ColorMetric.CIE76).writeTable(out);
+		byte[] written = out.toByteArray();
+
+		// Same palette.
+		Palette loaded = new Palette(colors, ColorMetric.CIE76, 0, () -> new ByteArrayInputStream(written));
+		Palette built = new Palette(colors, ColorMetric.CIE76);
+		for (int rgb = 0; rgb <= 0xFFFFFF; rgb += 0x010305) {
+			assertThat(loaded.nearestIndex(rgb, true)).isEqualTo(built.nearestIndex(rgb, true));
+		}
+
+		// Different metric, different colors, or invalid data.
+		Palette metric = new Palette(colors, ColorMetric.REDMEAN, 0, () -> new ByteArrayInputStream(written));
+		colors[7] ^= 1;
+		Palette changed = new Palette(colors, ColorMetric.CIE76, 0, () -> new ByteArrayInputStream(written));
+		Palette invalid = new Palette(colors, ColorMetric.CIE76, 0, () -> new ByteArrayInputStream(new byte[16]));
+		for (int rgb = 0; rgb <= 0xFFFFFF; rgb += 0x050301) {
+			assertThat(metric.nearestIndex(rgb, true)).isEqualTo(metric.nearestIndex(rgb, false));
+			assertThat(changed.nearestIndex(rgb, true)).isEqualTo(changed.nearestIndex(rgb, false));
+			assertThat(invalid.nearestIndex(rgb, true)).isEqualTo(invalid.nearestIndex(rgb, false));
+		}
+	}
+
+	@Test
+	void testLegacyPalette() {
+		Palette palette = Color.getPalette();
+		assertThat(palette.getSize()).isEqualTo(Color.values().size());
+		for (int i = 0; i < palette.getSize(); i++) {
+			assertThat(palette.get(i)).isEqualTo(Color.values().get(i).getRgb());
+		}
+	}
+
+}
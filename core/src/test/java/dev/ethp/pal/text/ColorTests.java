@@ -1,8 +1,11 @@
 package dev.ethp.pal.text;
 
+import java.util.Random;
+import dev.ethp.pal.math.ColorMetric;
 import org.junit.jupiter.api.Test;
 import static dev.ethp.pal.text.asserts.ColorAssert.assertThat;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static dev.ethp.pal.text.Color.*;
 
 public class ColorTests {
@@ -75,6 +78,16 @@ public class ColorTests {
 		assertThat(Color.rgb(0xBBF3E4D5)).hasRgb(0xF3E4D5);
 	}
 
+	/**
+	 * Test that {@link Color#rgb(int)} returns pooled instances.
+	 */
+	@Test
+	void testRgbInterning() {
+		assertThat(Color.rgb(0xFF8800)).isEqualToIdentity(Color.rgb(0xFF8800));
+		assertThat(Color.rgb(0xFF8800)).isEqualToIdentity(Color.rgbUnsafe("#ff8800"));
+		assertThat(Color.rgb(0xAAFF8800)).isEqualToIdentity(Color.rgb(0xFF8800));
+	}
+
 	/**
 	 * Test that {@link Color#rgb(String)} parses the correct RGB value.
 	 */
@@ -87,6 +100,35 @@ public class ColorTests {
 		assertThat(Color.rgb("#f")).isEmpty();
 		assertThat(Color.rgb("fff")).isEmpty();
 		assertThat(Color.rgb("ffffff")).isEmpty();
+		assertThat(Color.rgb("#-12345")).isEmpty();
+		assertThat(Color.rgb("")).isEmpty();
+	}
+
+	/**
+	 * Test that {@link Color#parseRgb(CharSequence, int, int)} parses every supported format.
+	 */
+	@Test
+	void testRgbParse() {
+		assertThat(Color.parseRgb("#f3e4d5")).isEqualTo(0xF3E4D5);
+		assertThat(Color.parseRgb("#FED")).isEqualTo(0xFFEEDD);
+		assertThat(Color.parseRgb("&#F3e4D5")).isEqualTo(0xF3E4D5);
+		assertThat(Color.parseRgb("\u00A7x\u00A7f\u00A73\u00A7e\u00A74\u00A7d\u00A75")).isEqualTo(0xF3E4D5);
+
+		// In place.
+		String message = "Hello &#00ff00World";
+		assertThat(Color.parseRgb(message, 6, 8)).isEqualTo(0x00FF00);
+		assertThat(Color.parseRgb(new StringBuilder(message), 6, 8)).isEqualTo(0x00FF00);
+		assertThat(Color.parseRgb(message, 7, 7)).isEqualTo(0x00FF00);
+
+		// Invalid.
+		assertThat(Color.parseRgb("&#GGHHII")).isEqualTo(-1);
+		assertThat(Color.parseRgb("#12345G")).isEqualTo(-1);
+		assertThat(Color.parseRgb("#+12345")).isEqualTo(-1);
+		assertThat(Color.parseRgb("&&123456")).isEqualTo(-1);
+		assertThat(Color.parseRgb("\u00A7x\u00A7f\u00A73\u00A7e\u00A74\u00A7d&5")).isEqualTo(-1);
+		assertThat(Color.parseRgb("\u00A7y\u00A7f\u00A73\u00A7e\u00A74\u00A7d\u00A75")).isEqualTo(-1);
+		assertThat(Color.parseRgb("")).isEqualTo(-1);
+		assertThatThrownBy(() -> Color.parseRgb(message, 15, 8)).isInstanceOf(IndexOutOfBoundsException.class);
 	}
 
 	/**
@@ -166,6 +208,23 @@ public class ColorTests {
 		assertThat(Color.code('g')).isEmpty(); // 'f' + 1
 	}
 
+	/**
+	 * Test that color code lookup without {@link java.util.Optional} is working as expected.
+	 */
+	@Test
+	void testCodeOrNull() {
+		for (int i = 0; i < Color.values().size(); i++) {
+			Color color = Color.values().get(i);
+			assertThat(Color.codeOrNull(color.getCode())).isEqualTo(color);
+			assertThat(Color.indexOf(color.getCode())).isEqualTo(i);
+		}
+
+		assertThat(Color.codeOrNull('k')).isNull();
+		assertThat(Color.codeOrNull('g')).isNull();
+		assertThat(Color.indexOf('r')).isEqualTo(-1);
+		assertThat(Color.indexOf('/')).isEqualTo(-1);
+	}
+
 	/**
 	 * Test that formatting name lookup is working as expected.
 	 */
@@ -199,6 +258,29 @@ public class ColorTests {
 		assertThat(Color.name("\0")).isEmpty();
 	}
 
+	/**
+	 * Test that name lookup inside a larger sequence of characters is working as expected.
+	 */
+	@Test
+	void testNameOrNull() {
+		assertThat(Color.nameOrNull("light purple")).isEqualTo(LIGHT_PURPLE);
+		assertThat(Color.nameOrNull(new StringBuilder("Dark_Aqua"))).isEqualTo(DARK_AQUA);
+		assertThat(Color.nameOrNull("<gold>", 1, 4)).isEqualTo(GOLD);
+		assertThat(Color.nameOrNull("<gold>", 1, 3)).isNull();
+		assertThat(Color.nameOrNull("<gold>", 0, 5)).isNull();
+		assertThat(Color.nameOrNull("")).isNull();
+		assertThat(Color.nameOrNull("dark__blue")).isNull();
+		assertThat(Color.nameOrNull("darkblue")).isNull();
+
+		for (Color color : Color.values()) {
+			assertThat(Color.nameOrNull(color.getName())).isEqualTo(color);
+			assertThat(Color.nameOrNull(color.getName().toUpperCase().replace('_', ' '))).isEqualTo(color);
+		}
+
+		assertThatThrownBy(() -> Color.nameOrNull("gold", 2, 3)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> Color.nameOrNull("gold", -1, 1)).isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
 	/**
 	 * Test that {@link Color#values()} contains all values.
 	 */
@@ -231,6 +313,12 @@ public class ColorTests {
 	void testLegacyString() {
 		assertThat(BLACK.toLegacyString())
 				.isEqualTo("\u00A70");
+
+		assertThat(Color.rgb(0xFF5556).toLegacyString())
+				.isEqualTo("\u00A7c");
+
+		assertThat(BLACK.appendLegacyTo(new StringBuilder("x")).toString())
+				.isEqualTo("x\u00A70");
 	}
 
 	/**
@@ -256,6 +344,20 @@ public class ColorTests {
 		assertThat(WHITE).hasName("white");
 
 		assertThat(rgb(0xF3AB10)).hasName("#f3ab10");
+		assertThat(rgb(0x0A0B0C)).hasName("#0a0b0c");
+		assertThat(rgb(0x000000).getName()).isEqualTo("#000000");
+		assertThat(rgb(0x123456).getName()).isSameAs(rgb(0x123456).getName());
+	}
+
+	/**
+	 * Test that the {@link Color#toString()} function works.
+	 */
+	@Test
+	void testToString() {
+		assertThat(rgb(0xF3AB10).toString()).isEqualTo("#F3AB10");
+		assertThat(rgb(0x0A0B0C).toString()).isEqualTo("#0A0B0C");
+		assertThat(BLACK.toString()).isEqualTo("#000000");
+		assertThat(WHITE.toString()).isEqualTo("#FFFFFF");
 	}
 	
 	/**
@@ -299,6 +401,103 @@ public class ColorTests {
 		assertThat(Color.rgb(0xCF9000)).isQuantized().hasCode('6');
 	}
 
+	/**
+	 * Test that the quantization table agrees with the Delta E 2000 approximation.
+	 */
+	@Test
+	void testQuantizationTable() {
+		boolean previous = Color.getUseQuantizationTable();
+		try {
+			for (int r = 0; r <= 0xFF; r += 5) {
+				for (int g = 0; g <= 0xFF; g += 5) {
+					for (int b = 0; b <= 0xFF; b += 5) {
+						int rgb = (r << 16) | (g << 8) | b;
+
+						Color.setUseQuantizationTable(false);
+						char expected = Color.quantize(rgb);
 
-}
+						Color.setUseQuantizationTable(true);
+						assertThat(Color.quantize(rgb)).isEqualTo(expected);
+					}
+				}
+			}
+		} finally {
+			Color.setUseQuantizationTable(previous);
+		}
+	}
+
+	/**
+	 * Test that batch quantization agrees with single color quantization.
+	 */
+	@Test
+	void testQuantizationBatch() {
+		Random random = new Random(0);
+		int[] rgb = new int[20000];
+		for (int i = 0; i < rgb.length; i++) {
+			rgb[i] = (i % 3 == 0) ? random.nextInt() : rgb[Math.max(0, i - 7)];
+		}
+
+		char[] chars = new char[rgb.length];
+		byte[] bytes = new byte[rgb.length];
+		Color.quantize(rgb, chars);
+		Color.quantize(rgb, bytes);
+		for (int i = 0; i < rgb.length; i++) {
+			assertThat(chars[i]).isEqualTo(Color.quantize(rgb[i]));
+			assertThat((char) bytes[i]).isEqualTo(chars[i]);
+		}
+
+		// Offsets.
+		char[] offset = new char[] { '-', '-', '-', '-' };
+		Color.quantize(new int[] { 0xFFFFFF, 0x131313, 0xFF0000 }, 1, offset, 2, 2);
+		assertThat(offset).containsExactly('-', '-', '0', 'c');
+
+		assertThatThrownBy(() -> Color.quantize(new int[2], 1, new char[2], 0, 2))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
 
+	/**
+	 * Test that quantization can use other color metrics.
+	 */
+	@Test
+	void testQuantizationMetric() {
+		assertThat(Color.getMetric()).isSameAs(ColorMetric.CIEDE2000);
+
+		for (ColorMetric metric : ColorMetric.values()) {
+			for (Color color : Color.values()) {
+				assertThat(Color.quantize(color.getRgb(), metric)).isEqualTo(color.getCode());
+			}
+		}
+
+		try {
+			Color.setMetric(ColorMetric.REDMEAN);
+			assertThat(Color.quantize(0xFF0000)).isEqualTo(Color.quantize(0xFF0000, ColorMetric.REDMEAN));
+			assertThat(Color.quantize(0x123499)).isEqualTo(Color.quantize(0x123499, ColorMetric.REDMEAN));
+		} finally {
+			Color.setMetric(ColorMetric.CIEDE2000);
+		}
+	}
+
+	/**
+	 * Test that pooled colors are quantized with the current color metric.
+	 */
+	@Test
+	void testQuantizationMetricPool() {
+		// Find a color that the metrics disagree on.
+		int rgb = 0;
+		while (Color.quantize(rgb, ColorMetric.CIEDE2000) == Color.quantize(rgb, ColorMetric.REDMEAN)) {
+			rgb += 0x010203;
+		}
+
+		try {
+			assertThat(Color.rgb(rgb).getCode()).isEqualTo(Color.quantize(rgb, ColorMetric.CIEDE2000));
+			Color.setMetric(ColorMetric.REDMEAN);
+			assertThat(Color.rgb(rgb).getCode()).isEqualTo(Color.quantize(rgb, ColorMetric.REDMEAN));
+			assertThat(Color.rgb(rgb).getCode()).isEqualTo(Color.quantize(rgb));
+		} finally {
+			Color.setMetric(ColorMetric.CIEDE2000);
+		}
+
+		assertThat(Color.rgb(rgb).getCode()).isEqualTo(Color.quantize(rgb, ColorMetric.CIEDE2000));
+	}
+
+}
@@ -1,9 +1,12 @@
 package dev.ethp.pal.text;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import static dev.ethp.pal.text.asserts.FormattingAssert.assertThat;
 import static dev.ethp.pal.text.asserts.FormattingCombinedAssert.assertThat;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static dev.ethp.pal.text.Formatting.*;
 
 public class FormattingTests {
@@ -97,6 +100,22 @@ public class FormattingTests {
 		assertThat(Formatting.code('p')).isEmpty(); // 'o' + 1
 	}
 
+	/**
+	 * Test that formatting code lookup without {@link java.util.Optional} is working as expected.
+	 */
+	@Test
+	void testCodeOrNull() {
+		for (Formatting style : Formatting.values()) {
+			assertThat(Formatting.codeOrNull(style.getCode())).isEqualTo(style);
+			assertThat(Formatting.Combined.of(Formatting.maskOf(style.getCode()))).isEqualTo(style);
+		}
+
+		assertThat(Formatting.codeOrNull('a')).isNull();
+		assertThat(Formatting.codeOrNull('p')).isNull();
+		assertThat(Formatting.maskOf('a')).isEqualTo(0);
+		assertThat(Formatting.Combined.of(Formatting.maskOf('l') | Formatting.maskOf('o'))).isSameAs(BOLD.with(ITALIC));
+	}
+
 	/**
 	 * Test that formatting name lookup is working as expected.
 	 */
@@ -119,6 +138,19 @@ public class FormattingTests {
 		assertThat(Formatting.name("\0")).isEmpty();
 	}
 
+	/**
+	 * Test that name lookup inside a larger sequence of characters is working as expected.
+	 */
+	@Test
+	void testNameOrNull() {
+		assertThat(Formatting.nameOrNull("Strikethrough")).isEqualTo(STRIKETHROUGH);
+		assertThat(Formatting.nameOrNull("magic")).isEqualTo(OBFUSCATED);
+		assertThat(Formatting.nameOrNull("<bold>", 1, 4)).isEqualTo(BOLD);
+		assertThat(Formatting.nameOrNull("<bold>", 1, 5)).isNull();
+		assertThat(Formatting.nameOrNull("red")).isNull();
+		assertThat(Formatting.nameOrNull("")).isNull();
+	}
+
 	/**
 	 * Test that {@link Formatting#values()} contains all values.
 	 */
@@ -246,12 +278,78 @@ public class FormattingTests {
 	@Test
 	void testCombinedLegacyString() {
 		assertThat(new Formatting.Combined(RESET, OBFUSCATED, STRIKETHROUGH, UNDERLINED, ITALIC, BOLD).toLegacyString())
-				.isEqualTo("\u00A7k\u00A7k\u00A7l\u00A7m\u00A7n\u00A7o");
+				.isEqualTo("\u00A7r\u00A7k\u00A7l\u00A7m\u00A7n\u00A7o");
+
+		assertThat(new Formatting.Combined(RESET).toLegacyString())
+				.isEqualTo("\u00A7r");
 
 		assertThat(new Formatting.Combined(BOLD, ITALIC).toLegacyString())
 				.isEqualTo("\u00A7l\u00A7o");
+
+		assertThat(new Formatting.Combined().toLegacyString())
+				.isEqualTo("");
+
+		assertThat(new Formatting.Combined(BOLD, ITALIC).appendLegacyTo(new StringBuilder("x")).toString())
+				.isEqualTo("x\u00A7l\u00A7o");
+
+		assertThat(OBFUSCATED.appendLegacyTo(new StringBuilder("x")).toString())
+				.isEqualTo("x\u00A7k");
+	}
+
+
+	/**
+	 * Test that combined formatting styles are shared between equal combinations.
+	 */
+	@Test
+	void testCombinedCanonical() {
+		for (int mask = 0; mask < 64; mask++) {
+			Formatting.Combined combined = Formatting.Combined.of(mask);
+			assertThat(combined.getMask()).isEqualTo(mask);
+			assertThat(Formatting.Combined.of(mask)).isSameAs(combined);
+			assertThat(combined.with(new Formatting.Combined())).isSameAs(combined);
+			assertThat(combined.styles()).isEqualTo(new Formatting.Combined(combined.styles().toArray(new Formatting[0])).styles());
+		}
+
+		assertThat(BOLD.with(ITALIC)).isSameAs(Formatting.Combined.of(BOLD.with(ITALIC).getMask()));
+		assertThat(new Formatting.Combined(BOLD).with(ITALIC)).isSameAs(ITALIC.with(BOLD));
+		assertThat(BOLD.with(ITALIC).without(ITALIC)).isSameAs(new Formatting.Combined().with(BOLD));
+		assertThat(BOLD.with(ITALIC).toLegacyString()).isSameAs(ITALIC.with(BOLD).toLegacyString());
+
+		assertThat(Formatting.Combined.of(BOLD)).isSameAs(Formatting.Combined.of(new Formatting.Combined(BOLD).getMask()));
+		assertThat(Formatting.Combined.of(ITALIC, BOLD, ITALIC)).isSameAs(BOLD.with(ITALIC));
+		assertThat(Formatting.Combined.of()).isSameAs(Formatting.Combined.of(0));
+
+		assertThatThrownBy(() -> Formatting.Combined.of(64)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> Formatting.Combined.of(-1)).isInstanceOf(IllegalArgumentException.class);
 	}
 
+	/**
+	 * Test iterating over the styles of combined formatting styles.
+	 */
+	@Test
+	void testCombinedIteration() {
+		List<Formatting> visited = new ArrayList<>();
+		new Formatting.Combined(ITALIC, BOLD, RESET).forEach(visited::add);
+		assertThat(visited).containsExactly(RESET, BOLD, ITALIC);
+
+		assertThat(new Formatting.Combined(ITALIC, BOLD, RESET).getSize()).isEqualTo(3);
+		assertThat(new Formatting.Combined(ITALIC, BOLD, RESET).isEmpty()).isFalse();
+		assertThat(new Formatting.Combined().getSize()).isEqualTo(0);
+		assertThat(new Formatting.Combined().isEmpty()).isTrue();
+		assertThat(new Formatting.Combined(BOLD).styles()).isSameAs(new Formatting.Combined(BOLD).styles());
+
+		for (int mask = 0; mask < 64; mask++) {
+			Formatting.Combined combined = Formatting.Combined.of(mask);
+			List<Formatting> styles = new ArrayList<>();
+			combined.forEach(styles::add);
+			assertThat(styles).hasSize(combined.getSize()).containsExactlyElementsOf(combined.styles());
+		}
+
+		// Every accessor lists the styles in the same order.
+		Formatting.Combined combined = new Formatting.Combined(ITALIC, BOLD, RESET);
+		assertThat(combined.styles()).containsExactly(RESET, BOLD, ITALIC);
+		assertThat(combined.toString()).isEqualTo(combined.styles().toString());
+	}
 
 	/**
 	 * Test that the {@link Formatting#getName()} function works.
@@ -0,0 +1,113 @@
+package dev.ethp.pal.text;
+
+import dev.ethp.pal.client.Client;
+import dev.ethp.pal.text.component.Node;
+import dev.ethp.pal.text.component.TextNode;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LegacyTextTests {
+
+	/**
+	 * Test that color, formatting and hex codes are removed.
+	 */
+	@Test
+	void testStrip() {
+		assertThat(LegacyText.strip("\u00A7c\u00A7lHello \u00A7rworld")).isEqualTo("Hello world");
+		assertThat(LegacyText.strip("\u00A7x\u00A71\u00A72\u00A73\u00A74\u00A75\u00A76Hex")).isEqualTo("Hex");
+		assertThat(LegacyText.strip("A\u00A7zB\u00A7")).isEqualTo("AB");
+		assertThat(LegacyText.strip("Plain")).isEqualTo("Plain");
+		assertThat(LegacyText.strip("")).isEqualTo("");
+
+		// Alternate codes.
+		assertThat(LegacyText.strip("&cRock & roll &#12abcd!")).isEqualTo("&cRock & roll &#12abcd!");
+		assertThat(LegacyText.strip("&cRock & roll &#12abcd!", true)).isEqualTo("Rock & roll !");
+		assertThat(LegacyText.strip("&x&f&f&0&0&0&0Y&z", true)).isEqualTo("Y&z");
+
+		// Hex codes only contain ASCII digits.
+		assertThat(LegacyText.strip("&x&\u0661&2&3&4&5&6Y", true)).isEqualTo("&x&\u0661Y");
+		assertThat(LegacyText.strip("&x&\uFF10&2&3&4&5&6Y", true)).isEqualTo("&x&\uFF10Y");
+	}
+
+	/**
+	 * Test that stripping writes into caller-supplied buffers.
+	 */
+	@Test
+	void testStripBuffers() {
+		StringBuilder builder = new StringBuilder("> ");
+		assertThat(LegacyText.strip(new StringBuilder("\u00A7aHi"), false, builder)).isSameAs(builder);
+		assertThat(builder.toString()).isEqualTo("> Hi");
+
+		String text = "xx\u00A7cAB\u00A7lCxx";
+		char[] out = new char[8];
+		out[0] = '[';
+		int written = LegacyText.strip(text, 2, text.length() - 2, false, out, 1);
+		assertThat(written).isEqualTo(3);
+		assertThat(new String(out, 0, written + 1)).isEqualTo("[ABC");
+
+		assertThatThrownBy(() -> LegacyText.strip(text, 0, text.length(), false, new char[2], 0))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> LegacyText.strip(text, 3, 2, false, out, 0))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	/**
+	 * Test that the visible length matches the stripped text and the parsed nodes.
+	 */
+	@Test
+	void testVisibleLength() {
+		String[] texts = {
+				"\u00A7c\u00A7lHello \u00A7rworld", "A\u00A7zB\u00A7", "", "&cA & B",
+				"\u00A7x\u00A71\u00A72\u00A73\u00A74\u00A75\u00A76Hex\u00A7x\u00A71"
+		};
+
+		for (String text : texts) {
+			for (boolean alternate : new boolean[] { false, true }) {
+				int nodes = 0;
+				for (TextNode node : Node.parse(text, alternate)) {
+					nodes += node.getText().length();
+				}
+
+				assertThat(LegacyText.visibleLength(text, alternate)).isEqualTo(nodes);
+				assertThat(LegacyText.visibleLength(text, alternate)).isEqualTo(LegacyText.strip(text, alternate).length());
+			}
+		}
+	}
+
+	/**
+	 * Test that alternate codes are translated.
+	 */
+	@Test
+	void testTranslateAlternateCodes() {
+		assertThat(LegacyText.translateAlternateCodes("&cRock & roll&L!"))
+				.isEqualTo("\u00A7cRock & roll\u00A7L!");
+		assertThat(LegacyText.translateAlternateCodes("&&a&z&")).isEqualTo("&\u00A7a&z&");
+		assertThat(LegacyText.translateAlternateCodes("\u00A7cAlready")).isEqualTo("\u00A7cAlready");
+
+		// Hex codes for RGB clients.
+		assertThat(LegacyText.translateAlternateCodes("&#12ABcdX", Client.DEFAULT_1_16_0))
+				.isEqualTo("\u00A7x\u00A71\u00A72\u00A7a\u00A7b\u00A7c\u00A7dX");
+		assertThat(LegacyText.translateAlternateCodes("&x&1&2&a&b&c&dX", Client.DEFAULT_1_16_0))
+				.isEqualTo("\u00A7x\u00A71\u00A72\u00A7a\u00A7b\u00A7c\u00A7dX");
+
+		// Hex codes for legacy clients.
+		assertThat(LegacyText.translateAlternateCodes("&#FF5555X", Client.DEFAULT_1_15_0)).isEqualTo("\u00A7cX");
+		assertThat(LegacyText.translateAlternateCodes("&#FF5555X")).isEqualTo("\u00A7cX");
+		assertThat(LegacyText.translateAlternateCodes("\u00A7x\u00A7f\u00A7f\u00A75\u00A75\u00A75\u00A75X", null))
+				.isEqualTo("\u00A7cX");
+
+		// Hex codes with non-ASCII digits are not translated.
+		assertThat(LegacyText.translateAlternateCodes("&x&\u0663&1&2&3&4&5X", Client.DEFAULT_1_16_0))
+				.isEqualTo("&x&\u0663\u00A71\u00A72\u00A73\u00A74\u00A75X");
+		assertThat(LegacyText.translateAlternateCodes("&x&\u0663&1&2&3&4&5X", Client.DEFAULT_1_15_0))
+				.isEqualTo("&x&\u0663\u00A71\u00A72\u00A73\u00A74\u00A75X");
+		assertThat(LegacyText.translateAlternateCodes("&#\uFF1112345X")).isEqualTo("&#\uFF1112345X");
+
+		// Reusable buffers.
+		StringBuilder buffer = new StringBuilder("> ");
+		assertThat(LegacyText.translateAlternateCodes("&aHi", null, buffer)).isSameAs(buffer);
+		assertThat(buffer.toString()).isEqualTo("> \u00A7aHi");
+	}
+
+}
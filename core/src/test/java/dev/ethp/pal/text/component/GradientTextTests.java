@@ -0,0 +1,118 @@
+package dev.ethp.pal.text.component;
+
+import java.util.List;
+import dev.ethp.pal.client.Client;
+import dev.ethp.pal.math.ColorMetric;
+import dev.ethp.pal.math.Gradient;
+import dev.ethp.pal.text.Color;
+import dev.ethp.pal.text.Formatting;
+import org.junit.jupiter.api.Test;
+import static dev.ethp.pal.text.Color.BLUE;
+import static dev.ethp.pal.text.Color.RED;
+import static dev.ethp.pal.text.Formatting.BOLD;
+import static dev.ethp.pal.text.component.asserts.TextNodeAssert.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GradientTextTests {
+
+	private static String join(List<TextNode> nodes) {
+		StringBuilder builder = new StringBuilder();
+		for (TextNode node : nodes) {
+			builder.append(node.getText());
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Test that every code point gets its own color for RGB clients.
+	 */
+	@Test
+	void testRgbClient() {
+		GradientText gradient = new GradientText(Color.rgb(0x000000), Color.rgb(0xFFFFFF));
+		List<TextNode> nodes = gradient.toNodes("Hello", Client.DEFAULT_1_16_0);
+		int[] colors = gradient.colors(5);
+
+		assertThat(nodes).hasSize(5);
+		for (int i = 0; i < nodes.size(); i++) {
+			assertThat(nodes.get(i))
+					.isText("Hello".substring(i, i + 1))
+					.isColor(Color.rgb(colors[i]));
+		}
+
+		assertThat(colors[0]).isEqualTo(0x000000);
+		assertThat(colors[4]).isEqualTo(0xFFFFFF);
+	}
+
+	/**
+	 * Test that code points which quantize to the same legacy color are merged for legacy clients.
+	 */
+	@Test
+	void testLegacyClient() {
+		GradientText gradient = new GradientText(RED, RED, BLUE);
+		List<TextNode> nodes = gradient.toNodes("Hello World", Client.DEFAULT_1_15_0);
+
+		assertThat(join(nodes)).isEqualTo("Hello World");
+		assertThat(nodes.size()).isLessThan(11);
+		assertThat(nodes.get(0)).isColor(RED);
+		assertThat(nodes.get(nodes.size() - 1)).isColor(BLUE);
+		for (int i = 1; i < nodes.size(); i++) {
+			assertThat(nodes.get(i).getColor()).isNotEqualTo(nodes.get(i - 1).getColor());
+		}
+
+		assertThat(gradient.toNodes("Hello World")).hasSameSizeAs(nodes);
+	}
+
+	/**
+	 * Test that remembered legacy colors follow changes to the color metric.
+	 */
+	@Test
+	void testMetricChange() {
+		String text = "The quick brown fox jumps over the lazy dog, then keeps running.";
+		GradientText gradient = GradientText.rainbow();
+		ColorMetric original = Color.getMetric();
+		gradient.toLegacyString(text);
+
+		try {
+			for (ColorMetric metric : ColorMetric.values()) {
+				Color.setMetric(metric);
+				GradientText fresh = new GradientText(gradient.getGradient());
+				assertThat(gradient.toLegacyString(text)).describedAs(metric.getName()).isEqualTo(fresh.toLegacyString(text));
+			}
+		} finally {
+			Color.setMetric(original);
+		}
+	}
+
+	/**
+	 * Test that surrogate pairs are never split between nodes.
+	 */
+	@Test
+	void testCodePoints() {
+		String text = "a\uD83D\uDE00b\uD83D\uDE01";
+		GradientText gradient = new GradientText(new Gradient(new int[] { 0xFF0000, 0x0000FF }, Gradient.Space.RGB));
+		List<TextNode> nodes = gradient.toNodes(text, Client.DEFAULT_1_16_0);
+
+		assertThat(nodes).hasSize(4);
+		assertThat(nodes.get(1)).isText("\uD83D\uDE00");
+		assertThat(nodes.get(3)).isText("\uD83D\uDE01");
+		assertThat(nodes.get(3)).isColor(Color.rgb(0x0000FF));
+	}
+
+	@Test
+	void testStyle() {
+		GradientText gradient = new GradientText(new Gradient(new int[] { 0xFF5555 }), new Formatting.Combined(BOLD));
+		assertThat(gradient.toLegacyString("Hi")).isEqualTo("\u00A7c\u00A7lHi");
+		assertThat(gradient.toNodes("")).isEmpty();
+	}
+
+	@Test
+	void testColorsCached() {
+		GradientText gradient = GradientText.rainbow();
+		assertThat(gradient.colors(7)).containsExactly(gradient.getGradient().sample(7));
+		assertThat(gradient.colors(7)).containsExactly(gradient.colors(7));
+		assertThat(gradient.colors(71)).hasSize(71);
+		assertThat(gradient.colors(7)).hasSize(7);
+	}
+
+}
@@ -0,0 +1,171 @@
+package dev.ethp.pal.text.component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import com.google.gson.stream.JsonWriter;
+import dev.ethp.pal.client.Client;
+import dev.ethp.pal.text.Color;
+import org.junit.jupiter.api.Test;
+import static dev.ethp.pal.text.Color.GREEN;
+import static dev.ethp.pal.text.Color.RED;
+import static dev.ethp.pal.text.Formatting.*;
+import static dev.ethp.pal.text.component.asserts.TextNodeAssert.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LegacyParserTests {
+
+	/**
+	 * Test that color and style codes are applied to the following text.
+	 */
+	@Test
+	void testCodes() {
+		List<TextNode> nodes = Node.parse("\u00A7c\u00A7lHello \u00A7rworld");
+		assertThat(nodes).hasSize(2);
+		assertThat(nodes.get(0)).isText("Hello ").isColor(RED).isStyle(BOLD);
+		assertThat(nodes.get(1)).isText("world").isNoColor().isStyle(RESET);
+
+		// A color code clears the styles.
+		nodes = Node.parse("\u00A7l\u00A7oA\u00A7aB\u00A7nC");
+		assertThat(nodes).hasSize(3);
+		assertThat(nodes.get(0)).isText("A").isNoColor().isStyle(BOLD, ITALIC);
+		assertThat(nodes.get(1)).isText("B").isColor(GREEN).isNoStyle();
+		assertThat(nodes.get(2)).isText("C").isColor(GREEN).isStyle(UNDERLINED);
+
+		// Uppercase codes.
+		assertThat(Node.parse("\u00A7CA").get(0)).isColor(RED);
+	}
+
+	/**
+	 * Test that text without codes and invalid codes are handled.
+	 */
+	@Test
+	void testPlainAndInvalid() {
+		assertThat(Node.parse("")).isEmpty();
+		assertThat(Node.parse("\u00A7c")).isEmpty();
+		assertThat(Node.parse("Hello").get(0)).isText("Hello").isNoColor().isNoStyle();
+		assertThat(Node.parse("A\u00A7zB\u00A7")).hasSize(2);
+		assertThat(Node.parse("A\u00A7zB\u00A7").get(1)).isText("B");
+
+		// The alternate specifier is only text unless it is enabled.
+		assertThat(Node.parse("&cA").get(0)).isText("&cA").isNoColor();
+	}
+
+	/**
+	 * Test that hex color codes are parsed.
+	 */
+	@Test
+	void testHex() {
+		List<TextNode> nodes = Node.parse("\u00A7lA\u00A7x\u00A71\u00A72\u00A7a\u00A7B\u00A7c\u00A7dB");
+		assertThat(nodes).hasSize(2);
+		assertThat(nodes.get(1)).isText("B").isColor(Color.rgb(0x12ABCD)).isNoStyle();
+
+		// An incomplete hex code is treated as separate codes.
+		nodes = Node.parse("\u00A7x\u00A71\u00A72B");
+		assertThat(nodes).hasSize(1);
+		assertThat(nodes.get(0)).isText("B").isColor(Color.codeUnsafe('2'));
+
+		// Non-ASCII digits are not hex digits.
+		nodes = Node.parse("\u00A7x\u00A7\u0661\u00A72\u00A73\u00A74\u00A75\u00A76B");
+		assertThat(nodes).hasSize(1);
+		assertThat(nodes.get(0)).isText("B").isColor(Color.codeUnsafe('6'));
+	}
+
+	/**
+	 * Test that the alternate specifier works when enabled.
+	 */
+	@Test
+	void testAlternateCodes() {
+		List<TextNode> nodes = Node.parse("&cRock & roll &#12abcdX &x&f&f&0&0&0&0Y", true);
+		assertThat(nodes).hasSize(3);
+		assertThat(nodes.get(0)).isText("Rock & roll ").isColor(RED);
+		assertThat(nodes.get(1)).isText("X ").isColor(Color.rgb(0x12ABCD));
+		assertThat(nodes.get(2)).isText("Y").isColor(Color.rgb(0xFF0000));
+	}
+
+	/**
+	 * Test that the handler receives ranges of the original characters.
+	 */
+	@Test
+	void testHandlerRanges() {
+		String text = "xx\u00A7cAB\u00A7lCxx";
+		List<int[]> ranges = new ArrayList<>();
+		LegacyParser.of(false).parse(text, 2, text.length() - 2, (chars, start, end, color, style) -> {
+			assertThat(chars).isSameAs(text);
+			ranges.add(new int[] { start, end });
+		});
+
+		assertThat(ranges).hasSize(2);
+		assertThat(ranges.get(0)).containsExactly(4, 6);
+		assertThat(ranges.get(1)).containsExactly(8, 9);
+
+		assertThatThrownBy(() -> LegacyParser.of(false).parse(text, 3, 2, (chars, start, end, color, style) -> {}))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	/**
+	 * Test that parsed strings are remembered by parsers with a cache.
+	 */
+	@Test
+	void testCache() {
+		LegacyParser parser = new LegacyParser(false, 4);
+		String text = "\u00A7cCached";
+		List<TextNode> nodes = parser.toNodes(text);
+		assertThat(parser.toNodes(new String(text.toCharArray()))).isSameAs(nodes);
+		assertThat(parser.getCache().getHits()).isEqualTo(1);
+		assertThat(parser.getCache().getMisses()).isEqualTo(1);
+		assertThatThrownBy(() -> nodes.add(new TextNode("x"))).isInstanceOf(UnsupportedOperationException.class);
+
+		// Uncached parsers and other character sequences are parsed every time.
+		assertThat(new LegacyParser().getCache()).isNull();
+		assertThat(parser.toNodes(new StringBuilder(text))).isNotSameAs(nodes).hasSize(1);
+		assertThat(Node.parse(text)).isSameAs(Node.parse(text));
+	}
+
+	/**
+	 * Test that legacy strings are converted straight into JSON.
+	 */
+	@Test
+	void testJson() throws IOException {
+		LegacyParser parser = LegacyParser.of(false);
+		assertThat(parser.toJsonString("")).isEqualTo("\"\"");
+		assertThat(parser.toJsonString("Hello")).isEqualTo("\"Hello\"");
+
+		// A single run is the same as the node.
+		String single = "\u00A7c\u00A7l<Hello> \"world\"\n";
+		assertThat(parser.toJsonString(single)).isEqualTo(Node.parse(single).get(0).toJsonString());
+
+		// Multiple runs are children of an empty component.
+		assertThat(parser.toJsonString("\u00A7cA\u00A7rB\u00A7lC"))
+				.isEqualTo("{\"text\":\"\",\"extra\":[{\"color\":\"red\",\"text\":\"A\"},{\"reset\":true,\"text\":\"B\"},"
+						+ "{\"reset\":true,\"bold\":true,\"text\":\"C\"}]}");
+
+		// Hex colors depend on the client.
+		String hex = "\u00A7x\u00A71\u00A72\u00A7a\u00A7b\u00A7c\u00A7dA";
+		assertThat(parser.toJsonString(hex, Client.DEFAULT_1_16_0)).isEqualTo("{\"color\":\"#12abcd\",\"text\":\"A\"}");
+		assertThat(parser.toJsonString(hex, Client.DEFAULT_1_15_0))
+				.isEqualTo(Node.parse(hex).get(0).toJsonString(Client.DEFAULT_1_15_0));
+
+		// The JSON writer gets the same structure.
+		StringWriter writer = new StringWriter();
+		parser.writeJson("\u00A7cA\u00A7aB", null, new JsonWriter(writer));
+		assertThat(writer.toString()).isEqualTo(parser.toJsonString("\u00A7cA\u00A7aB"));
+	}
+
+	/**
+	 * Test that parsing the legacy string of nodes gives back the same nodes.
+	 */
+	@Test
+	void testRoundTrip() {
+		String legacy = "\u00A7c\u00A7lHello \u00A7r\u00A7oworld\u00A7a!";
+		StringBuilder builder = new StringBuilder();
+		for (TextNode node : Node.parse(legacy)) {
+			node.appendLegacyTo(builder);
+		}
+
+		assertThat(builder.toString()).isEqualTo(legacy);
+	}
+
+}
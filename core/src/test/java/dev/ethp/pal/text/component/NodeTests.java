@@ -1,15 +1,24 @@
 package dev.ethp.pal.text.component;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import dev.ethp.pal.client.Client;
 import dev.ethp.pal.text.Color;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import static dev.ethp.pal.text.Color.*;
 import static dev.ethp.pal.text.Formatting.*;
 import static dev.ethp.pal.text.component.asserts.NodeAssert.assertThat;
+import static dev.ethp.pal.text.component.asserts.TextNodeAssert.assertThat;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class NodeTests {
 	
@@ -19,6 +28,19 @@ public class NodeTests {
 		}
 	}
 
+	static private class TranslateNode extends Node {
+		public TranslateNode() {
+			super(RED, null);
+		}
+
+		@Override
+		public JsonElement toJson(Client client) {
+			JsonObject obj = new JsonObject();
+			obj.add("translate", new JsonPrimitive("chat.type.text"));
+			return obj;
+		}
+	}
+
 	/**
 	 * Test that the constructors works.
 	 */
@@ -57,6 +79,23 @@ public class NodeTests {
 				.isEqualTo("\u00A70");
 	}
 
+	/**
+	 * Test that the {@link Node#appendLegacyTo(Appendable)} function works.
+	 */
+	@Test
+	void testAppendLegacy() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		new ImplNode(RED, new Combined(BOLD)).appendLegacyTo(builder);
+		new ImplNode(GREEN, null).appendLegacyTo(builder);
+		assertThat(builder.toString())
+				.isEqualTo("\u00A7c\u00A7l\u00A7a");
+
+		StringWriter writer = new StringWriter();
+		new ImplNode(RED, new Combined(BOLD)).appendLegacyTo(writer);
+		assertThat(writer.toString())
+				.isEqualTo("\u00A7c\u00A7l");
+	}
+
 	/**
 	 * Test that the {@link Node#toJson()} function works.
 	 */
@@ -116,6 +155,110 @@ public class NodeTests {
 				});
 	}
 
+	/**
+	 * Test that the streamed JSON of a subclass that only overrides {@link Node#toJson(Client)} comes from its tree.
+	 */
+	@Test
+	void testJsonStringSubclass() throws IOException {
+		Node node = new TranslateNode();
+		String expected = "{\"translate\":\"chat.type.text\"}";
+		assertThat(node.toJsonString()).isEqualTo(expected);
+		assertThat(node.appendJsonTo(new StringBuilder("["), null).append(']').toString()).isEqualTo("[" + expected + "]");
 
-}
+		StringWriter writer = new StringWriter();
+		JsonWriter json = new JsonWriter(writer);
+		json.beginArray();
+		node.writeJson(json, null);
+		node.writeJson(json, null);
+		json.endArray();
+		assertThat(writer.toString()).isEqualTo("[" + expected + "," + expected + "]");
+
+		// Nodes that do not override it are unchanged.
+		assertThat(new ImplNode(RED, new Combined(BOLD)).toJsonString()).isEqualTo("{\"color\":\"red\",\"bold\":true}");
+		assertThat(new ImplNode(null, null).toJsonString()).isEqualTo("null");
+	}
+
+	/**
+	 * Test that {@link Node#fromJson(String)} reads components and their children.
+	 */
+	@Test
+	void testFromJson() {
+		assertThat(Node.fromJson("\"Hello\"")).hasSize(1);
+		assertThat(Node.fromJson("\"Hello\"").get(0)).isText("Hello").isNoColor().isNoStyle();
+		assertThat(Node.fromJson("{\"text\":\"\"}")).isEmpty();
 
+		// Children inherit the properties they do not set, even when "extra" comes first.
+		List<TextNode> nodes = Node.fromJson("{\"extra\":[\"A\",{\"text\":\"B\",\"bold\":false,\"color\":\"#12abcd\"},"
+				+ "{\"text\":\"C\",\"color\":\"reset\",\"italic\":true}],\"color\":\"dark_red\",\"bold\":true,"
+				+ "\"clickEvent\":{\"action\":\"open_url\",\"value\":\"x\"},\"text\":\"P\"}");
+		assertThat(nodes).hasSize(4);
+		assertThat(nodes.get(0)).isText("P").isColor(DARK_RED).isStyle(BOLD);
+		assertThat(nodes.get(1)).isText("A").isColor(DARK_RED).isStyle(BOLD);
+		assertThat(nodes.get(2)).isText("B").isColor(rgb(0x12ABCD)).isNoStyle();
+		assertThat(nodes.get(3)).isText("C").isNoColor().isStyle(BOLD, ITALIC);
+
+		// The components after the first in an array are children of the first.
+		nodes = Node.fromJson("[{\"text\":\"A\",\"color\":\"red\"},\"B\",[\"C\",{\"text\":\"D\",\"underlined\":true}]]");
+		assertThat(nodes).hasSize(4);
+		assertThat(nodes.get(1)).isText("B").isColor(RED);
+		assertThat(nodes.get(3)).isText("D").isColor(RED).isStyle(UNDERLINED);
+	}
+
+	/**
+	 * Test that JSON written by nodes is read back into the same nodes.
+	 */
+	@Test
+	void testFromJsonRoundTrip() {
+		String legacy = "\u00A7c\u00A7lHello \u00A7r\u00A7oworld\u00A7x\u00A71\u00A72\u00A7a\u00A7b\u00A7c\u00A7d!";
+		List<TextNode> expected = Node.parse(legacy);
+		List<TextNode> nodes = Node.fromJson(LegacyParser.of(false).toJsonString(legacy, Client.DEFAULT_1_16_0));
+
+		assertThat(nodes).hasSize(expected.size());
+		for (int i = 0; i < nodes.size(); i++) {
+			assertThat(nodes.get(i).toLegacyString()).isEqualTo(expected.get(i).toLegacyString());
+		}
+	}
+
+	/**
+	 * Test that invalid and oversized JSON is rejected.
+	 */
+	@Test
+	void testFromJsonInvalid() {
+		assertThatThrownBy(() -> Node.fromJson("{\"text\":")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> Node.fromJson("\"A\" \"B\"")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> Node.fromJson("{\"color\":\"red\"}")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> Node.fromJson("{\"text\":\"A\",\"color\":\"blurple\"}"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("blurple");
+		assertThatThrownBy(() -> Node.fromJson("{\"text\":\"A\",\"bold\":\"yes\"}")).isInstanceOf(IllegalArgumentException.class);
+
+		// Limits.
+		StringBuilder deep = new StringBuilder();
+		for (int i = 0; i < 100; i++) deep.append('[');
+		assertThatThrownBy(() -> Node.fromJson(deep.toString()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("deeper");
+
+		JsonReader reader = new JsonReader(new StringReader("{\"text\":\"Hello\",\"extra\":[\"World\"]}"));
+		assertThatThrownBy(() -> Node.fromJson(reader, 8, 8))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("longer");
+
+		// Ignored properties count towards the limits.
+		StringBuilder hidden = new StringBuilder("{\"text\":\"A\",\"x\":");
+		for (int i = 0; i < 10000; i++) hidden.append("[{\"y\":");
+		assertThatThrownBy(() -> Node.fromJson(hidden.toString()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("deeper");
+
+		JsonReader longReader = new JsonReader(new StringReader("{\"text\":\"A\",\"hoverEvent\":{\"value\":\"0123456789\"}}"));
+		assertThatThrownBy(() -> Node.fromJson(longReader, 8, 12))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("longer");
+
+		List<TextNode> nodes = Node.fromJson("{\"text\":\"A\",\"clickEvent\":{\"action\":\"x\",\"value\":[1,true,null,{}]}}");
+		assertThat(nodes).hasSize(1);
+		assertThat(nodes.get(0)).isText("A");
+	}
+
+}
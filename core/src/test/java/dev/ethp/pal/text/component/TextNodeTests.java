@@ -1,7 +1,14 @@
 package dev.ethp.pal.text.component;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import dev.ethp.pal.client.Client;
+import dev.ethp.pal.text.Color;
 import dev.ethp.pal.text.Formatting;
 import org.junit.jupiter.api.Test;
 import static dev.ethp.pal.text.Color.GREEN;
@@ -67,6 +74,18 @@ public class TextNodeTests {
 				.isStyle(BOLD, UNDERLINED);
 	}
 
+	/**
+	 * Test that the constructors use the shared combined formatting styles.
+	 */
+	@Test
+	void testConstructorsCanonicalStyle() {
+		assertThat(new TextNode("Test", BOLD).getStyle()).isSameAs(Formatting.Combined.of(BOLD));
+		assertThat(new TextNode("Test", BOLD, ITALIC).getStyle()).isSameAs(BOLD.with(ITALIC));
+		assertThat(new TextNode("Test", RED, BOLD).getStyle()).isSameAs(Formatting.Combined.of(BOLD));
+		assertThat(new TextNode("Test", RED, BOLD, ITALIC).getStyle()).isSameAs(BOLD.with(ITALIC));
+		assertThat(new TextNode("Test", BOLD, RED).getStyle()).isSameAs(Formatting.Combined.of(BOLD));
+	}
+
 	/**
 	 * Test that the {@link TextNode#toLegacyString()} function works.
 	 */
@@ -74,6 +93,12 @@ public class TextNodeTests {
 	void testLegacyString() {
 		assertThat(new TextNode("Test", RED, BOLD, ITALIC).toLegacyString())
 				.isEqualTo("\u00A7c\u00A7l\u00A7oTest");
+
+		StringBuilder builder = new StringBuilder();
+		new TextNode("Hello ", RED).appendLegacyTo(builder);
+		new TextNode("World", GREEN, BOLD).appendLegacyTo(builder);
+		assertThat(builder.toString())
+				.isEqualTo("\u00A7cHello \u00A7a\u00A7lWorld");
 	}
 
 	/**
@@ -94,6 +119,31 @@ public class TextNodeTests {
 				.isJsonEqualTo(null, () -> new JsonPrimitive("Test"));
 	}
 
+	/**
+	 * Test that the streamed JSON is the same as the serialized {@link TextNode#toJson()} tree.
+	 */
+	@Test
+	void testJsonString() throws IOException {
+		Gson gson = new Gson();
+		TextNode[] nodes = {
+				new TextNode("Test"),
+				new TextNode("Test", RED, BOLD, ITALIC),
+				new TextNode("<\"Quoted\" & 'escaped'>\n\t\u0001\u2028\\", GREEN),
+				new TextNode("", Color.rgb(0x12ABCD), RESET),
+		};
+
+		for (Client client : new Client[] { null, Client.DEFAULT_1_15_0, Client.DEFAULT_1_16_0 }) {
+			for (TextNode node : nodes) {
+				String expected = gson.toJson(node.toJson(client));
+				assertThat(node.toJsonString(client)).isEqualTo(expected);
+
+				StringWriter writer = new StringWriter();
+				node.writeJson(new JsonWriter(writer), client);
+				assertThat(gson.toJson(JsonParser.parseString(writer.toString()))).isEqualTo(expected);
+			}
+		}
+	}
+
 
 }
 
@@ -0,0 +1,77 @@
+package dev.ethp.pal.util;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LruCacheTests {
+
+	/**
+	 * Test that the least recently used entries are discarded first.
+	 */
+	@Test
+	void testSize() {
+		LruCache<String, Integer> cache = new LruCache<>(2);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		assertThat(cache.get("a")).isEqualTo(1);
+
+		cache.put("c", 3);
+		assertThat(cache.getSize()).isEqualTo(2);
+		assertThat(cache.get("b")).isNull();
+		assertThat(cache.get("a")).isEqualTo(1);
+		assertThat(cache.get("c")).isEqualTo(3);
+		assertThat(cache.getEvictions()).isEqualTo(1);
+	}
+
+	/**
+	 * Test that the total weight of the entries stays within the limit.
+	 */
+	@Test
+	void testWeight() {
+		LruCache<String, String> cache = new LruCache<>(100, 10, (key, value) -> key.length());
+		cache.put("aaaa", "1");
+		cache.put("bbbb", "2");
+		assertThat(cache.getWeight()).isEqualTo(8);
+
+		cache.put("cccc", "3");
+		assertThat(cache.getWeight()).isEqualTo(8);
+		assertThat(cache.get("aaaa")).isNull();
+
+		// Replacing an entry replaces its weight.
+		cache.put("cccc", "4");
+		assertThat(cache.getWeight()).isEqualTo(8);
+
+		// Entries heavier than the limit are not cached.
+		cache.put("too long to cache", "5");
+		assertThat(cache.get("too long to cache")).isNull();
+		assertThat(cache.getSize()).isEqualTo(2);
+
+		cache.clear();
+		assertThat(cache.getSize()).isEqualTo(0);
+		assertThat(cache.getWeight()).isEqualTo(0);
+	}
+
+	/**
+	 * Test that values are only computed when they are not cached, and that the counters are updated.
+	 */
+	@Test
+	void testComputeIfAbsent() {
+		LruCache<String, Integer> cache = new LruCache<>(10);
+		int[] computed = { 0 };
+		for (int i = 0; i < 5; i++) {
+			assertThat(cache.computeIfAbsent("key", key -> ++computed[0])).isEqualTo(1);
+		}
+
+		assertThat(computed[0]).isEqualTo(1);
+		assertThat(cache.getHits()).isEqualTo(4);
+		assertThat(cache.getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	void testInvalid() {
+		assertThatThrownBy(() -> new LruCache<String, String>(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new LruCache<String, String>(1, 0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -23,6 +23,25 @@ public class VersionTests {
 		assertThatThrownBy(() -> parseUnsafe("0xf.0xf.0xf")).isInstanceOf(IllegalArgumentException.class);
 	}
 
+	/**
+	 * Test that {@link Version#parseOrNull(CharSequence)} works correctly.
+	 */
+	@Test
+	void testParseOrNull() {
+		assertThat(Version.parseOrNull("1.16.5")).isEqualTo(new Version(1, 16, 5));
+		assertThat(Version.parseOrNull(new StringBuilder("1.16"))).isEqualTo(new Version(1, 16, 0));
+		assertThat(Version.parseOrNull("2147483647.0.0")).isEqualTo(new Version(Integer.MAX_VALUE, 0, 0));
+
+		assertThat(Version.parseOrNull("")).isNull();
+		assertThat(Version.parseOrNull("1.")).isNull();
+		assertThat(Version.parseOrNull("1.2.")).isNull();
+		assertThat(Version.parseOrNull(".1.2")).isNull();
+		assertThat(Version.parseOrNull("1..2")).isNull();
+		assertThat(Version.parseOrNull("1.2.3.4")).isNull();
+		assertThat(Version.parseOrNull("2147483648.0.0")).isNull();
+		assertThat(Version.parseOrNull("1.x")).isNull();
+	}
+
 	/**
 	 * Test that version comparison works correctly.
 	 */
@@ -0,0 +1,38 @@
+package dev.ethp.pal.math.asserts
+
+import dev.ethp.pal.math.ColorSpace.OKLab
+import org.assertj.core.api.AbstractAssert
+import kotlin.math.abs
+
+/**
+ * Assertions for [OKLab].
+ */
+class OkLabAssert(actual: OKLab?) : AbstractAssert<OkLabAssert?, OKLab?>(actual, OkLabAssert::class.java) {
+
+	/**
+	 * Assert that the color space values are roughly equal to provided values.
+	 * Precision: e-4
+	 *
+	 * @param l The L value.
+	 * @param a The A value.
+	 * @param b The B value.
+	 * @return Self, for chaining.
+	 */
+	fun hasOKLab(l: Double, a: Double, b: Double): OkLabAssert {
+		isNotNull()
+		if (abs(actual!!.L - l) > 0.0001 || abs(actual.a - a) > 0.0001 || abs(actual.b - b) > 0.0001) {
+			failWithMessage("""
+				Expecting:  OKLab($l,$a,$b)
+				Actual:     OKLab(${actual.L},${actual.a},${actual.b})
+			""".trimIndent().trim())
+		}
+		return this
+	}
+
+	companion object {
+		@JvmStatic
+		fun assertThat(actual: OKLab?): OkLabAssert {
+			return OkLabAssert(actual)
+		}
+	}
+}
@@ -90,7 +90,7 @@ open class NodeAssert<Self: NodeAssert<Self, in Actual>, Actual : Node>(actual:
 	 */
 	fun isStyle(vararg expected: Formatting): Self {
 		isNotNull()
-		val expectedCombined = Formatting.Combined(*expected)
+		val expectedCombined = Formatting.Combined.of(*expected)
 		if (actual!!.style != expectedCombined) {
 			failWithMessage("""
 				Expecting:  Formatting(${expectedCombined})